@@ -183,6 +183,7 @@ public class BadgeCompiler extends AbstractProcessor {
         }
         showCirclePointBadge(typeBuilder);
         showTextBadge(typeBuilder);
+        showCountTextBadge(typeBuilder);
         hiddenBadge(typeBuilder);
         showDrawableBadge(typeBuilder);
         setOnDismissListener(typeBuilder);
@@ -326,6 +327,21 @@ public class BadgeCompiler extends AbstractProcessor {
         typeBuilder.addMethod(methodSpec);
     }
 
+    /**
+     * 生成数字参数的showTextBadge方法
+     *
+     * @param typeBuilder 类构造器
+     */
+    private void showCountTextBadge(TypeSpec.Builder typeBuilder) {
+        MethodSpec methodSpec = MethodSpec.methodBuilder("showTextBadge")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(int.class, "count")
+                .addStatement("mBadgeViewHelper.showTextBadge(count)")
+                .build();
+        typeBuilder.addMethod(methodSpec);
+    }
+
     /**
      * 生成hiddenBadge方法
      *
@@ -0,0 +1,234 @@
+package com.yhy.badge;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 13:50
+ * version: 1.0.0
+ * desc   : 重复绘制徽章、拖拽徽章及更新数字时不应分配新对象
+ * <p>
+ * 以运行时累计分配的字节数统计，该值按线程本地分配缓冲区的粒度增长，且包含其他线程的分配，
+ * 因此重复足够多次，只要求平均每次分配不超过 {@link #BYTES_PER_ITERATION} 字节
+ */
+@RunWith(AndroidJUnit4.class)
+public class BadgeDrawAllocationTest {
+    /**
+     * 统计分配时重复的次数
+     */
+    private static final int ITERATIONS = 20000;
+    /**
+     * 平均每次允许的分配字节数，小于最小对象大小，任何每次都发生的分配都会超出
+     */
+    private static final int BYTES_PER_ITERATION = 4;
+
+    private TestBadgeView mView;
+    private Canvas mCanvas;
+
+    @Test
+    public void drawTextBadge_doesNotAllocate() {
+        assertNoAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mView.showTextBadge("99+");
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                mView.getBadgeViewHelper().drawBadge(mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void drawCountBadge_doesNotAllocate() {
+        assertNoAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mView.showTextBadge(12);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                mView.getBadgeViewHelper().drawBadge(mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void drawCirclePointBadge_doesNotAllocate() {
+        assertNoAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mView.showCirclePointBadge();
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                mView.getBadgeViewHelper().drawBadge(mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void updateCount_doesNotAllocate() {
+        final int[] count = new int[1];
+        assertNoAllocations(new Runnable() {
+            @Override
+            public void run() {
+                // 两个数字都先显示一次，填充测量缓存
+                mView.showTextBadge(13);
+                mView.showTextBadge(12);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                mView.showTextBadge(12 + (++count[0] & 1));
+            }
+        });
+    }
+
+    @Test
+    public void drawDraggedTextBadge_doesNotAllocate() {
+        final DragBadgeView[] dragBadgeView = new DragBadgeView[1];
+        assertNoAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mView.showTextBadge("99+");
+                // 浮层方式不需要添加窗口
+                mView.getBadgeViewHelper().setDragOverlayEnable(true);
+                dragBadgeView[0] = new DragBadgeView(mView.getContext(), mView.getBadgeViewHelper());
+                dragBadgeView[0].setStickCenter(150, 20);
+                long now = SystemClock.uptimeMillis();
+                MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 120, 40, 0);
+                dragBadgeView[0].onTouchEvent(down);
+                down.recycle();
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                dragBadgeView[0].draw(mCanvas);
+            }
+        });
+    }
+
+    /**
+     * 在主线程中准备徽章并预热后，检查重复执行时分配的字节数
+     *
+     * @param prepare 准备徽章
+     * @param action  重复执行的操作
+     */
+    private void assertNoAllocations(final Runnable prepare, final Runnable action) {
+        final long[] allocated = new long[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+                FrameLayout root = new FrameLayout(context);
+                mView = new TestBadgeView(context);
+                root.addView(mView, new FrameLayout.LayoutParams(200, 100));
+                root.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY));
+                root.layout(0, 0, 400, 400);
+                prepare.run();
+
+                Bitmap bitmap = Bitmap.createBitmap(400, 400, Bitmap.Config.ARGB_8888);
+                mCanvas = new Canvas(bitmap);
+                // 第一次执行会测量文本、填充缓存，不计入
+                action.run();
+
+                long before = allocatedBytes();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    action.run();
+                }
+                allocated[0] = allocatedBytes() - before;
+                mCanvas = null;
+                bitmap.recycle();
+            }
+        });
+        assertTrue("allocated " + allocated[0] + " bytes in " + ITERATIONS + " iterations",
+                allocated[0] < (long) ITERATIONS * BYTES_PER_ITERATION);
+    }
+
+    /**
+     * 获取运行时累计分配的字节数
+     *
+     * @return 累计分配的字节数
+     */
+    private static long allocatedBytes() {
+        return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+    }
+
+    /**
+     * 与生成的徽章控件相同，把徽章相关的方法交给 {@link BadgeViewHelper}
+     */
+    private static class TestBadgeView extends View implements Badge {
+        private final BadgeViewHelper mBadgeViewHelper;
+
+        TestBadgeView(Context context) {
+            super(context);
+            mBadgeViewHelper = new BadgeViewHelper(this, context, null, BadgeViewHelper.BadgeGravity.RightTop);
+        }
+
+        @Override
+        public void showCirclePointBadge() {
+            mBadgeViewHelper.showCirclePointBadge();
+        }
+
+        @Override
+        public void showTextBadge(String badgeText) {
+            mBadgeViewHelper.showTextBadge(badgeText);
+        }
+
+        @Override
+        public void showTextBadge(int count) {
+            mBadgeViewHelper.showTextBadge(count);
+        }
+
+        @Override
+        public void hiddenBadge() {
+            mBadgeViewHelper.hiddenBadge();
+        }
+
+        @Override
+        public void showDrawableBadge(Bitmap bitmap) {
+            mBadgeViewHelper.showDrawable(bitmap);
+        }
+
+        @Override
+        public boolean callSuperOnTouchEvent(MotionEvent event) {
+            return super.onTouchEvent(event);
+        }
+
+        @Override
+        public void setOnDismissListener(OnDismissListener listener) {
+            mBadgeViewHelper.setOnDismissListener(listener);
+        }
+
+        @Override
+        public boolean isShowBadge() {
+            return mBadgeViewHelper.isShowBadge();
+        }
+
+        @Override
+        public BadgeViewHelper getBadgeViewHelper() {
+            return mBadgeViewHelper;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.graphics.Rect;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 
 /**
  * author : 颜洪毅
@@ -28,6 +29,13 @@ public interface Badge {
      */
     void showTextBadge(String badgeText);
 
+    /**
+     * 显示数字徽章
+     *
+     * @param count 显示数字
+     */
+    void showTextBadge(int count);
+
     /**
      * 隐藏徽章
      */
@@ -90,6 +98,37 @@ public interface Badge {
      */
     void postInvalidate();
 
+    /**
+     * 在主线程中刷新控件的某个区域
+     *
+     * @param l 区域左边
+     * @param t 区域顶部
+     * @param r 区域右边
+     * @param b 区域底部
+     */
+    void invalidate(int l, int t, int r, int b);
+
+    /**
+     * 在主线程中刷新控件
+     */
+    void invalidate();
+
+    /**
+     * 将任务投递到主线程中执行
+     *
+     * @param action 任务
+     * @return 是否投递成功
+     */
+    boolean post(Runnable action);
+
+    /**
+     * 移除尚未执行的任务
+     *
+     * @param action 任务
+     * @return 是否移除成功
+     */
+    boolean removeCallbacks(Runnable action);
+
     /**
      * 获取父控件
      *
@@ -125,4 +164,46 @@ public interface Badge {
      * @return 根控件
      */
     View getRootView();
+
+    /**
+     * 获取控件在窗口中的位置
+     *
+     * @param outLocation 用来接收位置的数组
+     */
+    void getLocationInWindow(int[] outLocation);
+
+    /**
+     * 获取控件水平方向的平移
+     *
+     * @return 水平平移
+     */
+    float getTranslationX();
+
+    /**
+     * 获取控件竖直方向的平移
+     *
+     * @return 竖直平移
+     */
+    float getTranslationY();
+
+    /**
+     * 获取控件树观察者
+     *
+     * @return 控件树观察者
+     */
+    ViewTreeObserver getViewTreeObserver();
+
+    /**
+     * 控件是否已添加到窗口
+     *
+     * @return 是否已添加到窗口
+     */
+    boolean isAttachedToWindow();
+
+    /**
+     * 添加控件添加到窗口及从窗口移除的监听
+     *
+     * @param listener 监听器
+     */
+    void addOnAttachStateChangeListener(View.OnAttachStateChangeListener listener);
 }
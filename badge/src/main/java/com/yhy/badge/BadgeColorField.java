@@ -0,0 +1,157 @@
+package com.yhy.badge;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 15:10
+ * version: 1.0.0
+ * desc   : 文本徽章及圆点徽章的颜色分布
+ * <p>
+ * 根据胶囊形状、背景色及文本色直接计算任意位置的颜色，爆炸效果无需先将徽章绘制成位图
+ */
+public class BadgeColorField {
+    /**
+     * 常规字重下笔画宽度与字体大小之比
+     */
+    private static final float STROKE_RATIO = 0.09f;
+    /**
+     * 粗体下笔画宽度与字体大小之比
+     */
+    private static final float BOLD_STROKE_RATIO = 0.13f;
+
+    private int mWidth;
+    private int mHeight;
+    private int mPadding;
+    private int mBgColor;
+    private int mTextColor;
+    private boolean mHasText;
+    /**
+     * 文本字形所占区域，坐标原点为徽章左上角
+     */
+    private final Rect mTextBounds = new Rect();
+    /**
+     * 文本区域中被字形覆盖的比例
+     */
+    private float mTextCoverage;
+
+    /**
+     * 设置徽章外观
+     *
+     * @param width     徽章宽度
+     * @param height    徽章高度
+     * @param padding   徽章内边距
+     * @param bgColor   背景色
+     * @param textColor 文本色
+     * @param hasText   是否有文本，圆点徽章没有文本
+     */
+    public void set(int width, int height, int padding, int bgColor, int textColor, boolean hasText) {
+        mWidth = width;
+        mHeight = height;
+        mPadding = padding;
+        mBgColor = bgColor;
+        mTextColor = textColor;
+        mHasText = hasText;
+        mTextBounds.setEmpty();
+        mTextCoverage = 0f;
+    }
+
+    /**
+     * 复制另一个颜色分布
+     *
+     * @param other 颜色分布
+     */
+    public void set(BadgeColorField other) {
+        set(other.mWidth, other.mHeight, other.mPadding, other.mBgColor, other.mTextColor, other.mHasText);
+        mTextBounds.set(other.mTextBounds);
+        mTextCoverage = other.mTextCoverage;
+    }
+
+    /**
+     * 设置文本的位置及覆盖率，需在 {@link #set(int, int, int, int, int, boolean)} 之后调用
+     * <p>
+     * 与徽章绘制方式一致，文本水平居中，基线距底部为内边距。覆盖率不绘制文本，按字形区域和字数估算：
+     * 每个字形的笔画长度约为两倍字高加字宽，乘以笔画宽度即为字形面积
+     *
+     * @param paint 绘制文本的画笔
+     * @param text  文本
+     */
+    public void setText(Paint paint, String text) {
+        if (!mHasText || text == null || text.length() == 0) {
+            return;
+        }
+        paint.getTextBounds(text, 0, text.length(), mTextBounds);
+        int baseline = mHeight - mPadding;
+        mTextBounds.offsetTo((mWidth - mTextBounds.width()) / 2, baseline + mTextBounds.top);
+        int glyphCount = text.codePointCount(0, text.length());
+        int textWidth = mTextBounds.width();
+        int textHeight = mTextBounds.height();
+        if (textWidth == 0 || textHeight == 0) {
+            mTextCoverage = 0f;
+            return;
+        }
+        boolean bold = paint.isFakeBoldText() || (paint.getTypeface() != null && paint.getTypeface().isBold());
+        float stroke = paint.getTextSize() * (bold ? BOLD_STROKE_RATIO : STROKE_RATIO);
+        float glyphWidth = textWidth / (float) glyphCount;
+        float inkArea = glyphCount * stroke * (2f * textHeight + glyphWidth);
+        mTextCoverage = Math.min(inkArea / (textWidth * textHeight), 1f);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getPadding() {
+        return mPadding;
+    }
+
+    public int getBgColor() {
+        return mBgColor;
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public boolean hasText() {
+        return mHasText;
+    }
+
+    public Rect getTextBounds() {
+        return mTextBounds;
+    }
+
+    public float getTextCoverage() {
+        return mTextCoverage;
+    }
+
+    /**
+     * 获取某个位置的颜色，坐标原点为徽章左上角
+     *
+     * @param x         x坐标
+     * @param y         y坐标
+     * @param threshold 采样点的抖动阈值，0到1均匀分布，文本区域内小于覆盖率时返回文本色，使文本色所占比例与字形面积一致
+     * @return 颜色，徽章外返回透明
+     */
+    public int colorAt(float x, float y, float threshold) {
+        float radius = mHeight / 2f;
+        // 到胶囊中轴线段的距离不超过半径即在徽章内
+        float cx = Math.max(radius, Math.min(x, mWidth - radius));
+        float dx = x - cx;
+        float dy = y - radius;
+        if (dx * dx + dy * dy > radius * radius) {
+            return Color.TRANSPARENT;
+        }
+        if (mHasText && threshold < mTextCoverage && x >= mTextBounds.left && x <= mTextBounds.right && y >= mTextBounds.top && y <= mTextBounds.bottom) {
+            return mTextColor;
+        }
+        return mBgColor;
+    }
+}
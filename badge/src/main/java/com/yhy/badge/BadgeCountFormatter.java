@@ -0,0 +1,131 @@
+package com.yhy.badge;
+
+import android.util.SparseArray;
+
+import java.util.EnumMap;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 13:10
+ * version: 1.0.0
+ * desc   : 数字徽章格式化工具
+ * <p>
+ * 所有可能显示的字符串都预先生成，格式化时不创建新的字符串；相同配置的格式化工具全局共享
+ */
+public class BadgeCountFormatter {
+    /**
+     * 默认最大值
+     */
+    public static final int DEFAULT_MAX_COUNT = 99;
+    /**
+     * 最大值的上限，超过时按上限处理，避免预先生成过多字符串
+     */
+    public static final int MAX_COUNT_LIMIT = 9999;
+    /**
+     * 以千为单位显示时的最大值
+     */
+    private static final int MAX_KILO = 999;
+
+    /**
+     * 按（超出时的显示方式，最大值）缓存格式化工具
+     */
+    private static final EnumMap<Overflow, SparseArray<BadgeCountFormatter>> FORMATTERS = new EnumMap<>(Overflow.class);
+
+    private final int mMaxCount;
+    private final Overflow mOverflow;
+    /**
+     * 0到最大值的字符串
+     */
+    private final String[] mCountTexts;
+    /**
+     * 超出最大值时的字符串，如 99+
+     */
+    private final String mPlusText;
+    /**
+     * 以千为单位的字符串，如 1k，第一次用到时生成
+     */
+    private String[] mKiloTexts;
+
+    private BadgeCountFormatter(int maxCount, Overflow overflow) {
+        mMaxCount = maxCount;
+        mOverflow = overflow;
+        mCountTexts = new String[maxCount + 1];
+        for (int i = 0; i <= maxCount; i++) {
+            mCountTexts[i] = String.valueOf(i);
+        }
+        mPlusText = maxCount + "+";
+    }
+
+    /**
+     * 获取格式化工具
+     *
+     * @param maxCount 最大值，超过 {@link #MAX_COUNT_LIMIT} 时按 {@link #MAX_COUNT_LIMIT} 处理
+     * @param overflow 超出最大值时的显示方式
+     * @return 格式化工具
+     */
+    public static synchronized BadgeCountFormatter obtain(int maxCount, Overflow overflow) {
+        maxCount = Math.min(Math.max(maxCount, 0), MAX_COUNT_LIMIT);
+        SparseArray<BadgeCountFormatter> formatters = FORMATTERS.get(overflow);
+        if (formatters == null) {
+            formatters = new SparseArray<>();
+            FORMATTERS.put(overflow, formatters);
+        }
+        BadgeCountFormatter formatter = formatters.get(maxCount);
+        if (formatter == null) {
+            formatter = new BadgeCountFormatter(maxCount, overflow);
+            formatters.put(maxCount, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * 格式化数字
+     *
+     * @param count 数字，小于0时按0处理
+     * @return 显示的文本
+     */
+    public String format(int count) {
+        if (count <= 0) {
+            return mCountTexts[0];
+        }
+        if (count <= mMaxCount) {
+            return mCountTexts[count];
+        }
+        // 不足一千时不能以千为单位显示，仍显示为最大值加号
+        if (mOverflow == Overflow.KILO && count >= 1000) {
+            return formatKilo(count);
+        }
+        return mPlusText;
+    }
+
+    /**
+     * 以千为单位格式化
+     *
+     * @param count 数字，不小于1000
+     * @return 显示的文本
+     */
+    private synchronized String formatKilo(int count) {
+        if (mKiloTexts == null) {
+            mKiloTexts = new String[MAX_KILO + 1];
+            for (int i = 1; i <= MAX_KILO; i++) {
+                mKiloTexts[i] = i + "k";
+            }
+        }
+        return mKiloTexts[Math.min(count / 1000, MAX_KILO)];
+    }
+
+    /**
+     * 超出最大值时的显示方式
+     */
+    public enum Overflow {
+        /**
+         * 显示为最大值加号，如 99+
+         */
+        PLUS,
+        /**
+         * 达到一千时以千为单位向下取整显示，如 1k，最多显示 999k；超出最大值但不足一千时仍显示为最大值加号
+         */
+        KILO
+    }
+}
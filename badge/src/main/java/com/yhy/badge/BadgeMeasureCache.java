@@ -0,0 +1,179 @@
+package com.yhy.badge;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 09:20
+ * version: 1.0.0
+ * desc   : 全局徽章文本测量结果缓存
+ * <p>
+ * 以（文本，字体大小，字体，内边距）为键，缓存徽章文本及背景的宽高，所有徽章共享
+ */
+public class BadgeMeasureCache {
+    /**
+     * 最大缓存条数
+     */
+    private static final int MAX_SIZE = 256;
+
+    private static final LruCache<Key, Metrics> CACHE = new LruCache<>(MAX_SIZE);
+    /**
+     * 查询缓存时复用的键，只用于查询，不会放入缓存
+     */
+    private static final Key LOOKUP_KEY = new Key();
+    /**
+     * 测量时复用的文本区域
+     */
+    private static final Rect TEXT_BOUNDS = new Rect();
+
+    private BadgeMeasureCache() {
+        throw new UnsupportedOperationException("Can not be instantiate.");
+    }
+
+    /**
+     * 获取徽章测量结果，未命中缓存时测量并缓存
+     * <p>
+     * 命中缓存时不分配任何对象，数字徽章频繁更新时也不产生垃圾
+     *
+     * @param paint   测量所用画笔
+     * @param text    徽章文本
+     * @param padding 徽章内边距
+     * @return 测量结果
+     */
+    public static Metrics obtain(Paint paint, String text, int padding) {
+        Metrics metrics;
+        synchronized (LOOKUP_KEY) {
+            LOOKUP_KEY.set(text, paint.getTextSize(), paint.getTypeface(), padding);
+            metrics = CACHE.get(LOOKUP_KEY);
+        }
+        if (metrics == null) {
+            metrics = measure(paint, text, padding);
+            CACHE.put(new Key(text, paint.getTextSize(), paint.getTypeface(), padding), metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.evictAll();
+    }
+
+    /**
+     * 测量徽章
+     *
+     * @param paint   测量所用画笔
+     * @param text    徽章文本
+     * @param padding 徽章内边距
+     * @return 测量结果
+     */
+    private static Metrics measure(Paint paint, String text, int padding) {
+        int textWidth;
+        int textHeight;
+        synchronized (TEXT_BOUNDS) {
+            paint.getTextBounds(text, 0, text.length(), TEXT_BOUNDS);
+            textWidth = TEXT_BOUNDS.width();
+            textHeight = TEXT_BOUNDS.height();
+        }
+        // 计算徽章背景的宽高
+        int badgeHeight = textHeight + padding * 2;
+        int badgeWidth;
+        // 当文本的长度为1或0时，计算出来的高度会比宽度大，此时设置宽度等于高度
+        if (text.length() == 1 || text.length() == 0) {
+            badgeWidth = badgeHeight;
+        } else {
+            badgeWidth = textWidth + padding * 2;
+        }
+        return new Metrics(textWidth, textHeight, badgeWidth, badgeHeight);
+    }
+
+    /**
+     * 徽章测量结果
+     */
+    public static class Metrics {
+        /**
+         * 文本宽度
+         */
+        public final int textWidth;
+        /**
+         * 文本高度
+         */
+        public final int textHeight;
+        /**
+         * 徽章背景宽度
+         */
+        public final int badgeWidth;
+        /**
+         * 徽章背景高度
+         */
+        public final int badgeHeight;
+
+        Metrics(int textWidth, int textHeight, int badgeWidth, int badgeHeight) {
+            this.textWidth = textWidth;
+            this.textHeight = textHeight;
+            this.badgeWidth = badgeWidth;
+            this.badgeHeight = badgeHeight;
+        }
+    }
+
+    /**
+     * 缓存键
+     */
+    private static class Key {
+        private String text;
+        private float textSize;
+        private Typeface typeface;
+        private int padding;
+
+        Key() {
+        }
+
+        Key(String text, float textSize, Typeface typeface, int padding) {
+            set(text, textSize, typeface, padding);
+        }
+
+        /**
+         * 修改键的内容，只能用于查询用的键，放入缓存的键不可修改
+         *
+         * @param text     徽章文本
+         * @param textSize 字体大小
+         * @param typeface 字体
+         * @param padding  徽章内边距
+         */
+        void set(String text, float textSize, Typeface typeface, int padding) {
+            this.text = text;
+            this.textSize = textSize;
+            this.typeface = typeface;
+            this.padding = padding;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Float.compare(key.textSize, textSize) == 0
+                    && padding == key.padding
+                    && text.equals(key.text)
+                    && (typeface == null ? key.typeface == null : typeface.equals(key.typeface));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = text.hashCode();
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + padding;
+            return result;
+        }
+    }
+}
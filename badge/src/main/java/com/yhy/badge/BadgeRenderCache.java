@@ -0,0 +1,173 @@
+package com.yhy.badge;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.PorterDuff;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 10:05
+ * version: 1.0.0
+ * desc   : 徽章绘制结果缓存
+ * <p>
+ * 徽章只录制一次，之后每次绘制只在徽章位置回放；
+ * 硬件加速画布使用显示列表（RenderNode 或 Picture），软件画布使用位图
+ */
+public class BadgeRenderCache {
+    /**
+     * 硬件加速时的显示列表，Android Q 及以上可用
+     */
+    private RenderNode mRenderNode;
+    /**
+     * 硬件加速时的显示列表，Android Q 以下使用
+     */
+    private Picture mPicture;
+    /**
+     * 软件绘制时的位图
+     */
+    private Bitmap mBitmap;
+    private Canvas mBitmapCanvas;
+    private Paint mBitmapPaint;
+    /**
+     * 当前录制结果所对应的策略
+     */
+    private boolean mHardware;
+    /**
+     * 当前录制结果的宽高
+     */
+    private int mWidth;
+    private int mHeight;
+    /**
+     * 是否需要重新录制
+     */
+    private boolean mDirty = true;
+
+    /**
+     * 标记徽章可见状态已变化，下次绘制时重新录制
+     */
+    public void invalidate() {
+        mDirty = true;
+    }
+
+    /**
+     * 是否需要重新录制
+     *
+     * @param canvas 宿主画布
+     * @param width  徽章宽度
+     * @param height 徽章高度
+     * @return 是否需要重新录制
+     */
+    public boolean isDirty(Canvas canvas, int width, int height) {
+        return mDirty || mHardware != canvas.isHardwareAccelerated() || mWidth != width || mHeight != height;
+    }
+
+    /**
+     * 开始录制，录制坐标原点为徽章左上角
+     *
+     * @param canvas 宿主画布，用于选择录制策略
+     * @param width  徽章宽度
+     * @param height 徽章高度
+     * @return 录制所用画布
+     */
+    public Canvas beginRecording(Canvas canvas, int width, int height) {
+        mHardware = canvas.isHardwareAccelerated();
+        mWidth = width;
+        mHeight = height;
+        if (mHardware) {
+            releaseBitmap();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                if (mRenderNode == null) {
+                    mRenderNode = new RenderNode(BadgeRenderCache.class.getSimpleName());
+                }
+                mRenderNode.setPosition(0, 0, width, height);
+                return mRenderNode.beginRecording(width, height);
+            }
+            if (mPicture == null) {
+                mPicture = new Picture();
+            }
+            return mPicture.beginRecording(width, height);
+        }
+
+        mRenderNode = null;
+        mPicture = null;
+        if (mBitmap == null || mBitmap.getWidth() != width || mBitmap.getHeight() != height) {
+            releaseBitmap();
+            mBitmap = Bitmap.createBitmap(Math.max(width, 1), Math.max(height, 1), Bitmap.Config.ARGB_8888);
+            mBitmapCanvas = new Canvas(mBitmap);
+        } else {
+            mBitmapCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
+        }
+        if (mBitmapPaint == null) {
+            mBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        }
+        mBitmapCanvas.save();
+        return mBitmapCanvas;
+    }
+
+    /**
+     * 结束录制
+     */
+    public void endRecording() {
+        if (mHardware) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                mRenderNode.endRecording();
+            } else {
+                mPicture.endRecording();
+            }
+        } else {
+            mBitmapCanvas.restore();
+        }
+        mDirty = false;
+    }
+
+    /**
+     * 在指定位置回放录制结果
+     *
+     * @param canvas 宿主画布
+     * @param left   徽章左边位置
+     * @param top    徽章顶部位置
+     */
+    public void draw(Canvas canvas, float left, float top) {
+        if (mHardware) {
+            canvas.save();
+            canvas.translate(left, top);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                canvas.drawRenderNode(mRenderNode);
+            } else {
+                canvas.drawPicture(mPicture);
+            }
+            canvas.restore();
+        } else if (mBitmap != null) {
+            canvas.drawBitmap(mBitmap, left, top, mBitmapPaint);
+        }
+    }
+
+    /**
+     * 释放所有录制结果
+     */
+    public void release() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mRenderNode != null) {
+            mRenderNode.discardDisplayList();
+        }
+        mRenderNode = null;
+        mPicture = null;
+        releaseBitmap();
+        mDirty = true;
+    }
+
+    /**
+     * 释放位图
+     */
+    private void releaseBitmap() {
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+            mBitmapCanvas = null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.yhy.badge;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 17:20
+ * version: 1.0.0
+ * desc   : 二维阻尼弹簧
+ * <p>
+ * 按弹簧方程的解析解计算任意时刻的位置和速度，与帧率无关；运动中可随时更换目标位置，速度保持连续
+ */
+public class BadgeSpring {
+    /**
+     * 默认刚度
+     */
+    public static final float DEFAULT_STIFFNESS = 1500f;
+    /**
+     * 默认阻尼比，小于1时会越过目标位置后回弹
+     */
+    public static final float DEFAULT_DAMPING_RATIO = 0.5f;
+    /**
+     * 静止时与目标位置的最大距离，像素
+     */
+    private static final float REST_DISPLACEMENT = 0.5f;
+    /**
+     * 静止时的最大速度，像素/秒
+     */
+    private static final float REST_VELOCITY = 20f;
+
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDampingRatio = DEFAULT_DAMPING_RATIO;
+
+    /**
+     * 起始时刻相对于目标位置的位移及速度
+     */
+    private float mStartDx;
+    private float mStartDy;
+    private float mStartVx;
+    private float mStartVy;
+    private long mStartTime;
+    private float mTargetX;
+    private float mTargetY;
+
+    /**
+     * 当前位置及速度
+     */
+    private float mX;
+    private float mY;
+    private float mVx;
+    private float mVy;
+
+    /**
+     * 设置刚度
+     *
+     * @param stiffness 刚度，必须大于0
+     */
+    public void setStiffness(float stiffness) {
+        if (stiffness > 0) {
+            mStiffness = stiffness;
+        }
+    }
+
+    public float getStiffness() {
+        return mStiffness;
+    }
+
+    /**
+     * 设置阻尼比
+     *
+     * @param dampingRatio 阻尼比，必须大于0
+     */
+    public void setDampingRatio(float dampingRatio) {
+        if (dampingRatio > 0) {
+            mDampingRatio = dampingRatio;
+        }
+    }
+
+    public float getDampingRatio() {
+        return mDampingRatio;
+    }
+
+    /**
+     * 从指定位置和速度开始运动
+     *
+     * @param x         起始x坐标
+     * @param y         起始y坐标
+     * @param vx        起始x方向速度，像素/秒
+     * @param vy        起始y方向速度，像素/秒
+     * @param targetX   目标x坐标
+     * @param targetY   目标y坐标
+     * @param timeNanos 起始时刻，纳秒
+     */
+    public void start(float x, float y, float vx, float vy, float targetX, float targetY, long timeNanos) {
+        mX = x;
+        mY = y;
+        mVx = vx;
+        mVy = vy;
+        mTargetX = targetX;
+        mTargetY = targetY;
+        mStartDx = x - targetX;
+        mStartDy = y - targetY;
+        mStartVx = vx;
+        mStartVy = vy;
+        mStartTime = timeNanos;
+    }
+
+    /**
+     * 运动中更换目标位置，从当前位置和速度继续运动
+     *
+     * @param targetX   目标x坐标
+     * @param targetY   目标y坐标
+     * @param timeNanos 当前时刻，纳秒
+     */
+    public void retarget(float targetX, float targetY, long timeNanos) {
+        update(timeNanos);
+        start(mX, mY, mVx, mVy, targetX, targetY, timeNanos);
+    }
+
+    /**
+     * 计算指定时刻的位置和速度
+     *
+     * @param timeNanos 当前时刻，纳秒
+     * @return 是否仍在运动
+     */
+    public boolean update(long timeNanos) {
+        float t = Math.max(timeNanos - mStartTime, 0) / 1000000000f;
+        float omega = (float) Math.sqrt(mStiffness);
+        float zeta = mDampingRatio;
+        float dx;
+        float dy;
+        if (zeta < 1f) {
+            // 欠阻尼
+            float omegaD = omega * (float) Math.sqrt(1f - zeta * zeta);
+            float decay = (float) Math.exp(-zeta * omega * t);
+            float cos = (float) Math.cos(omegaD * t);
+            float sin = (float) Math.sin(omegaD * t);
+            float bx = (mStartVx + zeta * omega * mStartDx) / omegaD;
+            float by = (mStartVy + zeta * omega * mStartDy) / omegaD;
+            dx = decay * (mStartDx * cos + bx * sin);
+            dy = decay * (mStartDy * cos + by * sin);
+            mVx = decay * ((bx * omegaD - zeta * omega * mStartDx) * cos - (mStartDx * omegaD + zeta * omega * bx) * sin);
+            mVy = decay * ((by * omegaD - zeta * omega * mStartDy) * cos - (mStartDy * omegaD + zeta * omega * by) * sin);
+        } else if (zeta == 1f) {
+            // 临界阻尼
+            float decay = (float) Math.exp(-omega * t);
+            float bx = mStartVx + omega * mStartDx;
+            float by = mStartVy + omega * mStartDy;
+            dx = (mStartDx + bx * t) * decay;
+            dy = (mStartDy + by * t) * decay;
+            mVx = (bx - omega * (mStartDx + bx * t)) * decay;
+            mVy = (by - omega * (mStartDy + by * t)) * decay;
+        } else {
+            // 过阻尼
+            float root = omega * (float) Math.sqrt(zeta * zeta - 1f);
+            float r1 = -zeta * omega + root;
+            float r2 = -zeta * omega - root;
+            float e1 = (float) Math.exp(r1 * t);
+            float e2 = (float) Math.exp(r2 * t);
+            float ax = (mStartVx - r2 * mStartDx) / (r1 - r2);
+            float ay = (mStartVy - r2 * mStartDy) / (r1 - r2);
+            float bx = mStartDx - ax;
+            float by = mStartDy - ay;
+            dx = ax * e1 + bx * e2;
+            dy = ay * e1 + by * e2;
+            mVx = ax * r1 * e1 + bx * r2 * e2;
+            mVy = ay * r1 * e1 + by * r2 * e2;
+        }
+        mX = mTargetX + dx;
+        mY = mTargetY + dy;
+        boolean atRest = dx * dx + dy * dy < REST_DISPLACEMENT * REST_DISPLACEMENT
+                && mVx * mVx + mVy * mVy < REST_VELOCITY * REST_VELOCITY;
+        if (atRest) {
+            mX = mTargetX;
+            mY = mTargetY;
+            mVx = 0;
+            mVy = 0;
+        }
+        return !atRest;
+    }
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    public float getVelocityX() {
+        return mVx;
+    }
+
+    public float getVelocityY() {
+        return mVy;
+    }
+}
@@ -0,0 +1,338 @@
+package com.yhy.badge;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 10:40
+ * version: 1.0.0
+ * desc   : 徽章贴图集
+ * <p>
+ * 每种（样式，文本）只光栅化一次，存放在按样式共享的位图中，绘制时只需一次带源区域的 drawBitmap；
+ * 位图空间不足时按最近最少使用淘汰，样式页数超出上限时同样淘汰最久未使用的样式页
+ * <p>
+ * 只应在主线程中使用
+ */
+public class BadgeSpriteAtlas {
+    /**
+     * 同时保留的样式页数
+     */
+    private static final int MAX_PAGES = 3;
+    /**
+     * 每页的列数，每列宽度为徽章高度的一半
+     */
+    private static final int PAGE_COLUMNS = 24;
+    /**
+     * 每页的行数，每行高度为徽章高度
+     */
+    private static final int PAGE_ROWS = 16;
+
+    private static final Map<Style, Page> PAGES = new LinkedHashMap<>(MAX_PAGES, 0.75f, true);
+
+    private BadgeSpriteAtlas() {
+        throw new UnsupportedOperationException("Can not be instantiate.");
+    }
+
+    /**
+     * 获取已光栅化的贴图
+     *
+     * @param style 徽章样式
+     * @param text  徽章文本
+     * @return 贴图，不存在时返回null
+     */
+    public static Sprite get(Style style, String text) {
+        Page page = PAGES.get(style);
+        return page == null ? null : page.sprites.get(text);
+    }
+
+    /**
+     * 为贴图分配空间，分配成功后需调用 {@link Sprite#beginRaster()} 和 {@link Sprite#endRaster()} 完成光栅化
+     *
+     * @param style  徽章样式
+     * @param text   徽章文本
+     * @param width  徽章宽度
+     * @param height 徽章高度
+     * @return 贴图，徽章尺寸不适合放入贴图集时返回null
+     */
+    public static Sprite allocate(Style style, String text, int width, int height) {
+        Page page = PAGES.get(style);
+        if (page == null) {
+            if (PAGES.size() >= MAX_PAGES) {
+                Iterator<Page> iterator = PAGES.values().iterator();
+                iterator.next().release();
+                iterator.remove();
+            }
+            page = new Page(style);
+            PAGES.put(style, page);
+        }
+        return page.allocate(text, width, height);
+    }
+
+    /**
+     * 清空贴图集
+     */
+    public static void clear() {
+        for (Page page : PAGES.values()) {
+            page.release();
+        }
+        PAGES.clear();
+    }
+
+    /**
+     * 徽章样式
+     */
+    public static class Style {
+        private final int bgColor;
+        private final int textColor;
+        private final int borderColor;
+        private final int borderWidth;
+        private final int padding;
+        private final float textSize;
+        private final Typeface typeface;
+
+        public Style(int bgColor, int textColor, int borderColor, int borderWidth, int padding, float textSize, Typeface typeface) {
+            this.bgColor = bgColor;
+            this.textColor = textColor;
+            this.borderColor = borderColor;
+            this.borderWidth = borderWidth;
+            this.padding = padding;
+            this.textSize = textSize;
+            this.typeface = typeface;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Style)) {
+                return false;
+            }
+            Style style = (Style) o;
+            return bgColor == style.bgColor
+                    && textColor == style.textColor
+                    && borderColor == style.borderColor
+                    && borderWidth == style.borderWidth
+                    && padding == style.padding
+                    && Float.compare(style.textSize, textSize) == 0
+                    && (typeface == null ? style.typeface == null : typeface.equals(style.typeface));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = bgColor;
+            result = 31 * result + textColor;
+            result = 31 * result + borderColor;
+            result = 31 * result + borderWidth;
+            result = 31 * result + padding;
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            return result;
+        }
+    }
+
+    /**
+     * 贴图
+     */
+    public static class Sprite {
+        private final Page page;
+        private final String text;
+        private final int row;
+        private final int column;
+        private final int span;
+        private final Rect src;
+        private final Set<BadgeViewHelper> owners = Collections.newSetFromMap(new WeakHashMap<BadgeViewHelper, Boolean>());
+        private boolean valid = true;
+
+        Sprite(Page page, String text, int row, int column, int span, int width, int height) {
+            this.page = page;
+            this.text = text;
+            this.row = row;
+            this.column = column;
+            this.span = span;
+            int left = column * page.cellWidth;
+            int top = row * page.cellHeight;
+            this.src = new Rect(left, top, left + width, top + height);
+        }
+
+        /**
+         * 开始光栅化，坐标原点为贴图左上角
+         *
+         * @return 光栅化所用画布
+         */
+        public Canvas beginRaster() {
+            page.canvas.save();
+            page.canvas.clipRect(src);
+            page.canvas.drawPaint(page.clearPaint);
+            page.canvas.translate(src.left, src.top);
+            return page.canvas;
+        }
+
+        /**
+         * 结束光栅化
+         */
+        public void endRaster() {
+            page.canvas.restore();
+        }
+
+        /**
+         * 绘制贴图，同时标记为最近使用
+         *
+         * @param canvas 当前画布
+         * @param dst    目标区域
+         * @param paint  画笔
+         */
+        public void draw(Canvas canvas, RectF dst, Paint paint) {
+            page.sprites.get(text);
+            canvas.drawBitmap(page.bitmap, src, dst, paint);
+        }
+
+        /**
+         * 贴图是否仍然有效
+         *
+         * @return 是否有效
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        /**
+         * 登记使用该贴图的徽章，贴图被淘汰时通知其重绘
+         *
+         * @param helper 徽章助手
+         */
+        public void addOwner(BadgeViewHelper helper) {
+            owners.add(helper);
+        }
+
+        /**
+         * 取消登记
+         *
+         * @param helper 徽章助手
+         */
+        public void removeOwner(BadgeViewHelper helper) {
+            owners.remove(helper);
+        }
+
+        /**
+         * 淘汰贴图
+         */
+        private void evict() {
+            valid = false;
+            page.free(row, column, span);
+            // 复制一份，通知过程中徽章会取消登记
+            List<BadgeViewHelper> helpers = new ArrayList<>(owners);
+            owners.clear();
+            for (BadgeViewHelper helper : helpers) {
+                helper.onSpriteEvicted();
+            }
+        }
+    }
+
+    /**
+     * 样式页
+     */
+    private static class Page {
+        private final int cellWidth;
+        private final int cellHeight;
+        private final boolean[][] used = new boolean[PAGE_ROWS][PAGE_COLUMNS];
+        private final LinkedHashMap<String, Sprite> sprites = new LinkedHashMap<>(16, 0.75f, true);
+        private final Paint clearPaint;
+        private Bitmap bitmap;
+        private Canvas canvas;
+
+        Page(Style style) {
+            // 文本高度不会超过字体大小，以此作为单元格高度，保证同一样式的徽章都能放下
+            cellHeight = Math.max((int) Math.ceil(style.textSize) + style.padding * 2, 1);
+            cellWidth = Math.max((cellHeight + 1) / 2, 1);
+            bitmap = Bitmap.createBitmap(cellWidth * PAGE_COLUMNS, cellHeight * PAGE_ROWS, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+            clearPaint = new Paint();
+            clearPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+        }
+
+        /**
+         * 分配空间，不足时淘汰最久未使用的贴图
+         */
+        Sprite allocate(String text, int width, int height) {
+            int span = (width + cellWidth - 1) / cellWidth;
+            if (height > cellHeight || span > PAGE_COLUMNS) {
+                return null;
+            }
+            while (true) {
+                for (int row = 0; row < PAGE_ROWS; row++) {
+                    int column = findFreeRun(row, span);
+                    if (column >= 0) {
+                        for (int i = 0; i < span; i++) {
+                            used[row][column + i] = true;
+                        }
+                        Sprite sprite = new Sprite(this, text, row, column, span, width, height);
+                        sprites.put(text, sprite);
+                        return sprite;
+                    }
+                }
+                if (sprites.isEmpty()) {
+                    return null;
+                }
+                Iterator<Sprite> iterator = sprites.values().iterator();
+                Sprite eldest = iterator.next();
+                iterator.remove();
+                eldest.evict();
+            }
+        }
+
+        /**
+         * 查找某行中连续span个空闲单元格
+         */
+        private int findFreeRun(int row, int span) {
+            int run = 0;
+            for (int column = 0; column < PAGE_COLUMNS; column++) {
+                run = used[row][column] ? 0 : run + 1;
+                if (run == span) {
+                    return column - span + 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 释放单元格
+         */
+        void free(int row, int column, int span) {
+            for (int i = 0; i < span; i++) {
+                used[row][column + i] = false;
+            }
+        }
+
+        /**
+         * 释放整页
+         */
+        void release() {
+            List<Sprite> list = new ArrayList<>(sprites.values());
+            sprites.clear();
+            for (Sprite sprite : list) {
+                sprite.evict();
+            }
+            // 不主动回收位图，已录制的显示列表在徽章重绘前仍可能引用它
+            bitmap = null;
+            canvas = null;
+        }
+    }
+}
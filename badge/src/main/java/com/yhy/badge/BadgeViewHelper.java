@@ -6,12 +6,13 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Looper;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 
 /**
  * author : 颜洪毅
@@ -53,9 +54,17 @@ public class BadgeViewHelper {
      */
     private String mBadgeText;
     /**
-     * 徽章文本所占区域大小
+     * 徽章背景的宽度，由测量结果得出
      */
-    private Rect mBadgeNumberRect;
+    private int mBadgeWidth;
+    /**
+     * 徽章背景的高度，由测量结果得出
+     */
+    private int mBadgeHeight;
+    /**
+     * 测量结果是否需要更新
+     */
+    private boolean mBadgeMetricsDirty;
     /**
      * 是否显示Badge
      */
@@ -68,6 +77,30 @@ public class BadgeViewHelper {
      * 整个徽章所占区域
      */
     private RectF mBadgeRectF;
+    /**
+     * 有描边时徽章背景所占区域
+     */
+    private RectF mBadgeInnerRectF;
+    /**
+     * 上次绘制时徽章所占区域，徽章未绘制时为空
+     */
+    private RectF mDrawnRectF;
+    /**
+     * 徽章变化时需要重绘的区域
+     */
+    private RectF mDirtyRectF;
+    /**
+     * 当前文本是否由数字徽章格式化而来
+     */
+    private boolean mBadgeTextIsCount;
+    /**
+     * 数字徽章格式化工具
+     */
+    private BadgeCountFormatter mCountFormatter;
+    /**
+     * 当前数字徽章的数字，修改格式化方式时重新格式化
+     */
+    private int mBadgeCount;
     /**
      * 是否可拖动
      */
@@ -93,7 +126,7 @@ public class BadgeViewHelper {
      */
     private RectF mBadgeDragExtraRectF;
     /**
-     * 拖动时的徽章控件
+     * 拖动时的徽章控件，开始拖动时才创建，拖动结束后释放
      */
     private DragBadgeView mDropBadgeView;
     /**
@@ -105,6 +138,62 @@ public class BadgeViewHelper {
      */
     private OnDismissListener mListener;
     private boolean mIsShowDrawable = false;
+    /**
+     * 是否缓存徽章的绘制结果
+     */
+    private boolean mRenderCacheEnable;
+    /**
+     * 徽章绘制结果缓存
+     */
+    private BadgeRenderCache mRenderCache;
+    /**
+     * 是否使用共享贴图集绘制文字徽章
+     */
+    private boolean mSpriteAtlasEnable;
+    /**
+     * 当前徽章在贴图集中的样式
+     */
+    private BadgeSpriteAtlas.Style mSpriteStyle;
+    /**
+     * 当前徽章在贴图集中的贴图
+     */
+    private BadgeSpriteAtlas.Sprite mSprite;
+    private Paint mSpritePaint;
+    /**
+     * 徽章编辑器，重复使用
+     */
+    private Editor mEditor;
+    /**
+     * 在其他线程中修改徽章时，投递到主线程的重绘任务
+     */
+    private Runnable mInvalidateBadgeTask;
+    /**
+     * 拖拽及爆炸效果是否绘制在根控件的浮层中，而不是单独添加一个窗口
+     */
+    private boolean mDragOverlayEnable;
+    /**
+     * 爆炸效果的最大碎片数
+     */
+    private int mExplosionParticleCount = ExplosionAnimator.DEFAULT_PARTICLE_COUNT;
+    /**
+     * 拖拽消失时的效果实现方式
+     */
+    private DismissEngine mDismissEngine = DismissEngine.Particle;
+    /**
+     * 拖拽时预测手指位置的时长，毫秒，0为不预测
+     */
+    private int mDragPredictionHorizon;
+    /**
+     * 拖拽徽章弹回原位时弹簧的刚度及阻尼比
+     */
+    private float mSpringStiffness = BadgeSpring.DEFAULT_STIFFNESS;
+    private float mSpringDampingRatio = BadgeSpring.DEFAULT_DAMPING_RATIO;
+    /**
+     * 宿主控件在窗口中的位置，不含自身平移；布局或滚动变化后在下一次绘制前刷新，开始拖拽时无需再遍历控件树
+     */
+    private final int[] mWindowLocation = new int[2];
+    private boolean mWindowLocationValid;
+    private WindowLocationTracker mWindowLocationTracker;
 
     /**
      * 构造方法
@@ -119,7 +208,8 @@ public class BadgeViewHelper {
         initDefaultAttrs(context, defaultBadgeGravity);
         initCustomAttrs(context, attrs);
         afterInitDefaultAndCustomAttrs();
-        mDropBadgeView = new DragBadgeView(context, this);
+        mWindowLocationTracker = new WindowLocationTracker();
+        mBadge.addOnAttachStateChangeListener(mWindowLocationTracker);
     }
 
     /**
@@ -129,8 +219,11 @@ public class BadgeViewHelper {
      * @param defaultBadgeGravity 默认对齐方式
      */
     private void initDefaultAttrs(Context context, BadgeGravity defaultBadgeGravity) {
-        mBadgeNumberRect = new Rect();
+        mBadgeMetricsDirty = true;
         mBadgeRectF = new RectF();
+        mBadgeInnerRectF = new RectF();
+        mDrawnRectF = new RectF();
+        mDirtyRectF = new RectF();
         mBadgeBgColor = Color.RED;
         mBadgeTextColor = Color.WHITE;
         mBadgeTextSize = BadgeViewUtils.sp2px(context, 10);
@@ -149,6 +242,7 @@ public class BadgeViewHelper {
         mIsShowBadge = false;
 
         mBadgeText = null;
+        mCountFormatter = BadgeCountFormatter.obtain(BadgeCountFormatter.DEFAULT_MAX_COUNT, BadgeCountFormatter.Overflow.PLUS);
 
         mBitmap = null;
 
@@ -209,6 +303,17 @@ public class BadgeViewHelper {
             mBadgeBorderColor = typedArray.getColor(attr, mBadgeBorderColor);
         } else if (attr == R.styleable.Badge_bdg_drag_extra) {
             mDragExtra = typedArray.getDimensionPixelSize(attr, mDragExtra);
+        } else if (attr == R.styleable.Badge_bdg_render_cache) {
+            mRenderCacheEnable = typedArray.getBoolean(attr, mRenderCacheEnable);
+        } else if (attr == R.styleable.Badge_bdg_sprite_atlas) {
+            mSpriteAtlasEnable = typedArray.getBoolean(attr, mSpriteAtlasEnable);
+        } else if (attr == R.styleable.Badge_bdg_drag_overlay) {
+            mDragOverlayEnable = typedArray.getBoolean(attr, mDragOverlayEnable);
+        } else if (attr == R.styleable.Badge_bdg_drag_prediction) {
+            mDragPredictionHorizon = Math.max(typedArray.getInt(attr, mDragPredictionHorizon), 0);
+        } else if (attr == R.styleable.Badge_bdg_dismiss_engine) {
+            int ordinal = typedArray.getInt(attr, mDismissEngine.ordinal());
+            mDismissEngine = DismissEngine.values()[ordinal];
         }
     }
 
@@ -225,8 +330,9 @@ public class BadgeViewHelper {
      * @param badgeBgColor 背景颜色
      */
     public void setBadgeBgColorInt(int badgeBgColor) {
-        mBadgeBgColor = badgeBgColor;
-        mBadge.postInvalidate();
+        if (applyBadgeBgColor(badgeBgColor)) {
+            invalidateBadge();
+        }
     }
 
     /**
@@ -235,8 +341,9 @@ public class BadgeViewHelper {
      * @param badgeTextColor 字体颜色
      */
     public void setBadgeTextColorInt(int badgeTextColor) {
-        mBadgeTextColor = badgeTextColor;
-        mBadge.postInvalidate();
+        if (applyBadgeTextColor(badgeTextColor)) {
+            invalidateBadge();
+        }
     }
 
     /**
@@ -245,10 +352,8 @@ public class BadgeViewHelper {
      * @param badgeTextSize 字体大小
      */
     public void setBadgeTextSizeSp(int badgeTextSize) {
-        if (badgeTextSize >= 0) {
-            mBadgeTextSize = BadgeViewUtils.sp2px(mBadge.getContext(), badgeTextSize);
-            mBadgePaint.setTextSize(mBadgeTextSize);
-            mBadge.postInvalidate();
+        if (applyBadgeTextSize(badgeTextSize)) {
+            invalidateBadge();
         }
     }
 
@@ -258,9 +363,8 @@ public class BadgeViewHelper {
      * @param badgeVerticalMargin 外边距
      */
     public void setBadgeVerticalMarginDp(int badgeVerticalMargin) {
-        if (badgeVerticalMargin >= 0) {
-            mBadgeVerticalMargin = BadgeViewUtils.dp2px(mBadge.getContext(), badgeVerticalMargin);
-            mBadge.postInvalidate();
+        if (applyBadgeVerticalMargin(badgeVerticalMargin)) {
+            invalidateBadge();
         }
     }
 
@@ -270,9 +374,8 @@ public class BadgeViewHelper {
      * @param badgeHorizontalMargin 外边距
      */
     public void setBadgeHorizontalMarginDp(int badgeHorizontalMargin) {
-        if (badgeHorizontalMargin >= 0) {
-            mBadgeHorizontalMargin = BadgeViewUtils.dp2px(mBadge.getContext(), badgeHorizontalMargin);
-            mBadge.postInvalidate();
+        if (applyBadgeHorizontalMargin(badgeHorizontalMargin)) {
+            invalidateBadge();
         }
     }
 
@@ -282,9 +385,8 @@ public class BadgeViewHelper {
      * @param badgePadding 内边距
      */
     public void setBadgePaddingDp(int badgePadding) {
-        if (badgePadding >= 0) {
-            mBadgePadding = BadgeViewUtils.dp2px(mBadge.getContext(), badgePadding);
-            mBadge.postInvalidate();
+        if (applyBadgePadding(badgePadding)) {
+            invalidateBadge();
         }
     }
 
@@ -294,9 +396,8 @@ public class BadgeViewHelper {
      * @param badgeGravity 对齐方式
      */
     public void setBadgeGravity(BadgeGravity badgeGravity) {
-        if (badgeGravity != null) {
-            mBadgeGravity = badgeGravity;
-            mBadge.postInvalidate();
+        if (applyBadgeGravity(badgeGravity)) {
+            invalidateBadge();
         }
     }
 
@@ -307,7 +408,7 @@ public class BadgeViewHelper {
      */
     public void setDragEnable(boolean dragEnable) {
         mDragEnable = dragEnable;
-        mBadge.postInvalidate();
+        mWindowLocationTracker.update();
     }
 
     /**
@@ -317,7 +418,75 @@ public class BadgeViewHelper {
      */
     public void setResumeTravel(boolean resumeTravel) {
         mResumeTravel = resumeTravel;
-        mBadge.postInvalidate();
+    }
+
+    /**
+     * 设置拖拽及爆炸效果是否绘制在根控件的浮层中
+     * <p>
+     * 开启后拖拽时不再添加全屏窗口，下次开始拖拽时生效。浮层中的控件收不到触摸事件，
+     * 弹回过程中只有按在宿主控件范围内时才会转交给拖拽徽章，从而重新抓起；全屏窗口方式在任意位置按下均可
+     *
+     * @param dragOverlayEnable 是否绘制在浮层中
+     */
+    public void setDragOverlayEnable(boolean dragOverlayEnable) {
+        mDragOverlayEnable = dragOverlayEnable;
+    }
+
+    /**
+     * 设置爆炸效果的最大碎片数
+     * <p>
+     * 实际碎片数还会随徽章大小减少，小徽章不需要太多碎片
+     *
+     * @param explosionParticleCount 最大碎片数
+     */
+    public void setExplosionParticleCount(int explosionParticleCount) {
+        if (explosionParticleCount > 0) {
+            mExplosionParticleCount = explosionParticleCount;
+        }
+    }
+
+    /**
+     * 设置拖拽时预测手指位置的时长
+     * <p>
+     * 徽章会绘制在预测位置，减少跟随手指的延迟，一般设置为一到两帧的时长
+     *
+     * @param dragPredictionHorizon 预测时长，毫秒，0为不预测
+     */
+    public void setDragPredictionHorizon(int dragPredictionHorizon) {
+        mDragPredictionHorizon = Math.max(dragPredictionHorizon, 0);
+    }
+
+    /**
+     * 设置拖拽徽章弹回原位时弹簧的刚度，越大弹回越快
+     *
+     * @param springStiffness 刚度，必须大于0
+     */
+    public void setSpringStiffness(float springStiffness) {
+        if (springStiffness > 0) {
+            mSpringStiffness = springStiffness;
+        }
+    }
+
+    /**
+     * 设置拖拽徽章弹回原位时弹簧的阻尼比，小于1时会越过原位后回弹，越小回弹越明显
+     *
+     * @param springDampingRatio 阻尼比，必须大于0
+     */
+    public void setSpringDampingRatio(float springDampingRatio) {
+        if (springDampingRatio > 0) {
+            mSpringDampingRatio = springDampingRatio;
+        }
+    }
+
+    /**
+     * 设置拖拽消失时的效果实现方式
+     *
+     * @param dismissEngine 实现方式
+     */
+    public void setDismissEngine(DismissEngine dismissEngine) {
+        if (dismissEngine != null) {
+            mDismissEngine = dismissEngine;
+        }
     }
 
     /**
@@ -326,9 +495,8 @@ public class BadgeViewHelper {
      * @param badgeBorderWidthDp 边框宽度
      */
     public void setBadgeBorderWidthDp(int badgeBorderWidthDp) {
-        if (badgeBorderWidthDp >= 0) {
-            mBadgeBorderWidth = BadgeViewUtils.dp2px(mBadge.getContext(), badgeBorderWidthDp);
-            mBadge.postInvalidate();
+        if (applyBadgeBorderWidth(badgeBorderWidthDp)) {
+            invalidateBadge();
         }
     }
 
@@ -338,8 +506,285 @@ public class BadgeViewHelper {
      * @param badgeBorderColor 边框颜色
      */
     public void setBadgeBorderColorInt(int badgeBorderColor) {
+        if (applyBadgeBorderColor(badgeBorderColor)) {
+            invalidateBadge();
+        }
+    }
+
+    /**
+     * 设置是否缓存徽章的绘制结果
+     * <p>
+     * 开启后徽章只在可见状态变化时重新录制，其余时候直接回放录制结果
+     *
+     * @param renderCacheEnable 是否缓存
+     */
+    public void setRenderCacheEnable(boolean renderCacheEnable) {
+        mRenderCacheEnable = renderCacheEnable;
+        if (!renderCacheEnable && mRenderCache != null) {
+            mRenderCache.release();
+            mRenderCache = null;
+        }
+        invalidateBadge();
+    }
+
+    /**
+     * 设置是否使用共享贴图集绘制文字徽章
+     * <p>
+     * 开启后相同样式、相同文本的徽章只光栅化一次，适合大量显示常见数字的场景
+     *
+     * @param spriteAtlasEnable 是否使用贴图集
+     */
+    public void setSpriteAtlasEnable(boolean spriteAtlasEnable) {
+        mSpriteAtlasEnable = spriteAtlasEnable;
+        if (!spriteAtlasEnable) {
+            releaseSprite();
+        }
+        invalidateBadge();
+    }
+
+    /**
+     * 标记绘制结果缓存失效
+     */
+    private void invalidateRenderCache() {
+        if (mRenderCache != null) {
+            mRenderCache.invalidate();
+        }
+        releaseSprite();
+    }
+
+    /**
+     * 标记徽章样式已变化
+     */
+    private void invalidateBadgeStyle() {
+        mSpriteStyle = null;
+        invalidateRenderCache();
+    }
+
+    /**
+     * 不再使用当前贴图
+     */
+    private void releaseSprite() {
+        if (mSprite != null) {
+            mSprite.removeOwner(this);
+            mSprite = null;
+        }
+    }
+
+    /**
+     * 当前贴图被贴图集淘汰
+     */
+    void onSpriteEvicted() {
+        mSprite = null;
+        invalidateBadge();
+    }
+
+    /**
+     * 只重绘徽章变化前后所占的区域
+     * <p>
+     * 徽章区域的计算和重绘都只在主线程中进行，其他线程中调用时整体投递到主线程，不在其他线程中修改布局状态
+     * <p>
+     * 注意：{@link View#invalidate(int, int, int, int)} 自 API 28 起已废弃，开启硬件加速时脏区域会被忽略，
+     * 整个控件都会重绘，此时只能省去重新计算无关区域的开销；仅在软件绘制时才真正只重绘局部区域
+     */
+    private void invalidateBadge() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            if (mInvalidateBadgeTask == null) {
+                mInvalidateBadgeTask = new Runnable() {
+                    @Override
+                    public void run() {
+                        invalidateBadge();
+                    }
+                };
+            }
+            // 多次调用只保留一次
+            mBadge.removeCallbacks(mInvalidateBadgeTask);
+            mBadge.post(mInvalidateBadgeTask);
+            return;
+        }
+
+        int width = mBadge.getWidth();
+        int height = mBadge.getHeight();
+        if (width == 0 || height == 0) {
+            // 宿主控件尚未布局，无法计算徽章区域
+            mBadge.invalidate();
+            return;
+        }
+
+        mDirtyRectF.set(mDrawnRectF);
+        // 拖动结束时可能仍处于拖动状态，此处不判断是否正在拖动
+        if (mIsShowBadge && (!mIsShowDrawable || mBitmap != null)) {
+            if (mIsShowDrawable) {
+                layoutDrawableBadge();
+            } else {
+                layoutTextBadge();
+            }
+            mDirtyRectF.union(mBadgeRectF);
+        }
+        if (mDirtyRectF.isEmpty()) {
+            return;
+        }
+
+        // 向外扩展1像素，包含抗锯齿边缘
+        int left = (int) Math.floor(mDirtyRectF.left) - 1;
+        int top = (int) Math.floor(mDirtyRectF.top) - 1;
+        int right = (int) Math.ceil(mDirtyRectF.right) + 1;
+        int bottom = (int) Math.ceil(mDirtyRectF.bottom) + 1;
+        mBadge.invalidate(left, top, right, bottom);
+    }
+
+    /**
+     * 开始批量修改徽章
+     * <p>
+     * 所有修改完成后调用 {@link Editor#apply()}，只重新计算一次徽章区域并重绘一次，没有任何变化时不重绘
+     *
+     * @return 徽章编辑器
+     */
+    public Editor edit() {
+        if (mEditor == null) {
+            mEditor = new Editor();
+        }
+        mEditor.mChanged = false;
+        return mEditor;
+    }
+
+    private boolean applyBadgeBgColor(int badgeBgColor) {
+        if (mBadgeBgColor == badgeBgColor) {
+            return false;
+        }
+        mBadgeBgColor = badgeBgColor;
+        invalidateBadgeStyle();
+        return true;
+    }
+
+    private boolean applyBadgeTextColor(int badgeTextColor) {
+        if (mBadgeTextColor == badgeTextColor) {
+            return false;
+        }
+        mBadgeTextColor = badgeTextColor;
+        invalidateBadgeStyle();
+        return true;
+    }
+
+    private boolean applyBadgeTextSize(int badgeTextSizeSp) {
+        if (badgeTextSizeSp < 0) {
+            return false;
+        }
+        int badgeTextSize = BadgeViewUtils.sp2px(mBadge.getContext(), badgeTextSizeSp);
+        if (mBadgeTextSize == badgeTextSize) {
+            return false;
+        }
+        mBadgeTextSize = badgeTextSize;
+        mBadgePaint.setTextSize(mBadgeTextSize);
+        mBadgeMetricsDirty = true;
+        invalidateBadgeStyle();
+        return true;
+    }
+
+    private boolean applyBadgeVerticalMargin(int badgeVerticalMarginDp) {
+        if (badgeVerticalMarginDp < 0) {
+            return false;
+        }
+        int badgeVerticalMargin = BadgeViewUtils.dp2px(mBadge.getContext(), badgeVerticalMarginDp);
+        if (mBadgeVerticalMargin == badgeVerticalMargin) {
+            return false;
+        }
+        mBadgeVerticalMargin = badgeVerticalMargin;
+        return true;
+    }
+
+    private boolean applyBadgeHorizontalMargin(int badgeHorizontalMarginDp) {
+        if (badgeHorizontalMarginDp < 0) {
+            return false;
+        }
+        int badgeHorizontalMargin = BadgeViewUtils.dp2px(mBadge.getContext(), badgeHorizontalMarginDp);
+        if (mBadgeHorizontalMargin == badgeHorizontalMargin) {
+            return false;
+        }
+        mBadgeHorizontalMargin = badgeHorizontalMargin;
+        return true;
+    }
+
+    private boolean applyBadgePadding(int badgePaddingDp) {
+        if (badgePaddingDp < 0) {
+            return false;
+        }
+        int badgePadding = BadgeViewUtils.dp2px(mBadge.getContext(), badgePaddingDp);
+        if (mBadgePadding == badgePadding) {
+            return false;
+        }
+        mBadgePadding = badgePadding;
+        mBadgeMetricsDirty = true;
+        invalidateBadgeStyle();
+        return true;
+    }
+
+    private boolean applyBadgeGravity(BadgeGravity badgeGravity) {
+        if (badgeGravity == null || mBadgeGravity == badgeGravity) {
+            return false;
+        }
+        mBadgeGravity = badgeGravity;
+        return true;
+    }
+
+    private boolean applyBadgeBorderWidth(int badgeBorderWidthDp) {
+        if (badgeBorderWidthDp < 0) {
+            return false;
+        }
+        int badgeBorderWidth = BadgeViewUtils.dp2px(mBadge.getContext(), badgeBorderWidthDp);
+        if (mBadgeBorderWidth == badgeBorderWidth) {
+            return false;
+        }
+        mBadgeBorderWidth = badgeBorderWidth;
+        invalidateBadgeStyle();
+        return true;
+    }
+
+    private boolean applyBadgeBorderColor(int badgeBorderColor) {
+        if (mBadgeBorderColor == badgeBorderColor) {
+            return false;
+        }
         mBadgeBorderColor = badgeBorderColor;
-        mBadge.postInvalidate();
+        invalidateBadgeStyle();
+        return true;
+    }
+
+    private boolean applyTextBadge(String badgeText, boolean isCount) {
+        mBadgeTextIsCount = isCount;
+        if (mIsShowBadge && !mIsShowDrawable && TextUtils.equals(mBadgeText, badgeText)) {
+            return false;
+        }
+        if (mIsShowDrawable || !TextUtils.equals(mBadgeText, badgeText)) {
+            mBadgeText = badgeText;
+            mBadgeMetricsDirty = true;
+            invalidateRenderCache();
+        }
+        mIsShowDrawable = false;
+        mIsShowBadge = true;
+        return true;
+    }
+
+    private boolean applyCountBadge(int count) {
+        mBadgeCount = count;
+        return applyTextBadge(mCountFormatter.format(count), true);
+    }
+
+    private boolean applyDrawableBadge(Bitmap bitmap) {
+        if (mIsShowBadge && mIsShowDrawable && mBitmap == bitmap) {
+            return false;
+        }
+        mBitmap = bitmap;
+        mIsShowDrawable = true;
+        invalidateRenderCache();
+        mIsShowBadge = true;
+        return true;
+    }
+
+    private boolean applyHiddenBadge() {
+        if (!mIsShowBadge) {
+            return false;
+        }
+        mIsShowBadge = false;
+        return true;
     }
 
     /**
@@ -351,6 +796,13 @@ public class BadgeViewHelper {
     public boolean onTouchEvent(MotionEvent event) {
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
+                if (mDropBadgeView != null && mDropBadgeView.isSpringRunning()) {
+                    // 浮层中的控件收不到触摸事件，弹回过程中交给拖拽徽章判断是否按在徽章上并重新抓起
+                    mIsDraging = true;
+                    mBadge.getParent().requestDisallowInterceptTouchEvent(true);
+                    mDropBadgeView.onTouchEvent(event);
+                    return true;
+                }
                 mBadgeDragExtraRectF.left = mBadgeRectF.left - mDragExtra;
                 mBadgeDragExtraRectF.top = mBadgeRectF.top - mDragExtra;
                 mBadgeDragExtraRectF.right = mBadgeRectF.right + mDragExtra;
@@ -360,25 +812,37 @@ public class BadgeViewHelper {
                     mIsDraging = true;
                     mBadge.getParent().requestDisallowInterceptTouchEvent(true);
 
-                    Rect badgeableRect = new Rect();
-                    mBadge.getGlobalVisibleRect(badgeableRect);
-                    mDropBadgeView.setStickCenter(badgeableRect.left + mBadgeRectF.left + mBadgeRectF.width() / 2, badgeableRect.top + mBadgeRectF.top + mBadgeRectF.height() / 2);
+                    if (mDropBadgeView == null) {
+                        mDropBadgeView = new DragBadgeView(mBadge.getContext(), this);
+                    }
+
+                    if (!mWindowLocationValid) {
+                        mWindowLocationTracker.refresh();
+                    }
+                    // 自身平移不计入缓存，按当前平移计算
+                    float windowX = mWindowLocation[0] + mBadge.getTranslationX();
+                    float windowY = mWindowLocation[1] + mBadge.getTranslationY();
+                    mDropBadgeView.setStickCenter(windowX + mBadgeRectF.left + mBadgeRectF.width() / 2, windowY + mBadgeRectF.top + mBadgeRectF.height() / 2);
 
                     mDropBadgeView.onTouchEvent(event);
-                    mBadge.postInvalidate();
+                    invalidateBadge();
                     return true;
                 }
                 break;
             case MotionEvent.ACTION_MOVE:
                 if (mIsDraging) {
-                    mDropBadgeView.onTouchEvent(event);
+                    if (mDropBadgeView != null) {
+                        mDropBadgeView.onTouchEvent(event);
+                    }
                     return true;
                 }
                 break;
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
                 if (mIsDraging) {
-                    mDropBadgeView.onTouchEvent(event);
+                    if (mDropBadgeView != null) {
+                        mDropBadgeView.onTouchEvent(event);
+                    }
                     mIsDraging = false;
                     return true;
                 }
@@ -393,6 +857,7 @@ public class BadgeViewHelper {
      * 动画结束并消失
      */
     public void endDragWithDismiss() {
+        mDropBadgeView = null;
         hiddenBadge();
         if (mListener != null) {
             mListener.onDismiss(mBadge);
@@ -403,7 +868,8 @@ public class BadgeViewHelper {
      * 动画结束未消失
      */
     public void endDragWithoutDismiss() {
-        mBadge.postInvalidate();
+        mDropBadgeView = null;
+        invalidateBadge();
     }
 
     /**
@@ -418,6 +884,9 @@ public class BadgeViewHelper {
             } else {
                 drawTextBadge(canvas);
             }
+            mDrawnRectF.set(mBadgeRectF);
+        } else {
+            mDrawnRectF.setEmpty();
         }
     }
 
@@ -427,6 +896,14 @@ public class BadgeViewHelper {
      * @param canvas 当前画布
      */
     private void drawDrawableBadge(Canvas canvas) {
+        layoutDrawableBadge();
+        canvas.drawBitmap(mBitmap, mBadgeRectF.left, mBadgeRectF.top, mBadgePaint);
+    }
+
+    /**
+     * 计算图像徽章所占区域
+     */
+    private void layoutDrawableBadge() {
         mBadgeRectF.left = mBadge.getWidth() - mBadgeHorizontalMargin - mBitmap.getWidth();
         mBadgeRectF.top = mBadgeVerticalMargin;
         switch (mBadgeGravity) {
@@ -442,7 +919,6 @@ public class BadgeViewHelper {
             default:
                 break;
         }
-        canvas.drawBitmap(mBitmap, mBadgeRectF.left, mBadgeRectF.top, mBadgePaint);
         mBadgeRectF.right = mBadgeRectF.left + mBitmap.getWidth();
         mBadgeRectF.bottom = mBadgeRectF.top + mBitmap.getHeight();
     }
@@ -453,21 +929,75 @@ public class BadgeViewHelper {
      * @param canvas 当前画布
      */
     private void drawTextBadge(Canvas canvas) {
-        String badgeText = "";
-        if (!TextUtils.isEmpty(mBadgeText)) {
-            badgeText = mBadgeText;
-        }
-        // 获取文本宽所占宽高
-        mBadgePaint.getTextBounds(badgeText, 0, badgeText.length(), mBadgeNumberRect);
-        // 计算徽章背景的宽高
-        int badgeHeight = mBadgeNumberRect.height() + mBadgePadding * 2;
-        int badgeWidth;
-        // 当mBadgeText的长度为1或0时，计算出来的高度会比宽度大，此时设置宽度等于高度
-        if (badgeText.length() == 1 || badgeText.length() == 0) {
-            badgeWidth = badgeHeight;
-        } else {
-            badgeWidth = mBadgeNumberRect.width() + mBadgePadding * 2;
+        layoutTextBadge();
+        if (mSpriteAtlasEnable && drawSpriteBadge(canvas)) {
+            return;
+        }
+        if (!mRenderCacheEnable) {
+            renderTextBadge(canvas);
+            return;
+        }
+
+        if (mRenderCache == null) {
+            mRenderCache = new BadgeRenderCache();
+        }
+        int badgeWidth = mBadgeWidth;
+        int badgeHeight = mBadgeHeight;
+        if (mRenderCache.isDirty(canvas, badgeWidth, badgeHeight)) {
+            // 以徽章左上角为原点录制
+            Canvas recordingCanvas = mRenderCache.beginRecording(canvas, badgeWidth, badgeHeight);
+            recordingCanvas.translate(-mBadgeRectF.left, -mBadgeRectF.top);
+            renderTextBadge(recordingCanvas);
+            mRenderCache.endRecording();
         }
+        mRenderCache.draw(canvas, mBadgeRectF.left, mBadgeRectF.top);
+    }
+
+    /**
+     * 使用共享贴图集绘制文字徽章
+     *
+     * @param canvas 当前画布
+     * @return 徽章不适合放入贴图集时返回false
+     */
+    private boolean drawSpriteBadge(Canvas canvas) {
+        if (mSprite == null || !mSprite.isValid()) {
+            if (mSpriteStyle == null) {
+                mSpriteStyle = new BadgeSpriteAtlas.Style(mBadgeBgColor, mBadgeTextColor, mBadgeBorderColor, mBadgeBorderWidth,
+                        mBadgePadding, mBadgePaint.getTextSize(), mBadgePaint.getTypeface());
+            }
+            String badgeText = TextUtils.isEmpty(mBadgeText) ? "" : mBadgeText;
+            mSprite = BadgeSpriteAtlas.get(mSpriteStyle, badgeText);
+            if (mSprite == null) {
+                mSprite = BadgeSpriteAtlas.allocate(mSpriteStyle, badgeText, mBadgeWidth, mBadgeHeight);
+                if (mSprite == null) {
+                    return false;
+                }
+                // 以贴图左上角为原点光栅化
+                Canvas rasterCanvas = mSprite.beginRaster();
+                rasterCanvas.translate(-mBadgeRectF.left, -mBadgeRectF.top);
+                renderTextBadge(rasterCanvas);
+                mSprite.endRaster();
+            }
+            mSprite.addOwner(this);
+        }
+        if (mSpritePaint == null) {
+            mSpritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        }
+        mSprite.draw(canvas, mBadgeRectF, mSpritePaint);
+        return true;
+    }
+
+    /**
+     * 计算文字徽章所占区域
+     */
+    private void layoutTextBadge() {
+        // 文本、字体大小或内边距变化后才重新获取测量结果
+        if (mBadgeMetricsDirty) {
+            measureTextBadge();
+            mBadgeMetricsDirty = false;
+        }
+        int badgeHeight = mBadgeHeight;
+        int badgeWidth = mBadgeWidth;
 
         // 计算徽章背景上下的值
         mBadgeRectF.top = mBadgeVerticalMargin;
@@ -490,6 +1020,27 @@ public class BadgeViewHelper {
         // 计算徽章背景左右的值
         mBadgeRectF.right = mBadge.getWidth() - mBadgeHorizontalMargin;
         mBadgeRectF.left = mBadgeRectF.right - badgeWidth;
+    }
+
+    /**
+     * 测量文字徽章
+     * <p>
+     * 数字徽章与普通文本使用同一种测量方式，相同文本的徽章大小一致，测量结果从全局测量缓存中获取，命中缓存时不分配对象
+     */
+    private void measureTextBadge() {
+        BadgeMeasureCache.Metrics metrics = BadgeMeasureCache.obtain(mBadgePaint, TextUtils.isEmpty(mBadgeText) ? "" : mBadgeText, mBadgePadding);
+        mBadgeWidth = metrics.badgeWidth;
+        mBadgeHeight = metrics.badgeHeight;
+    }
+
+    /**
+     * 在已计算好的区域中绘制文字徽章
+     *
+     * @param canvas 当前画布
+     */
+    private void renderTextBadge(Canvas canvas) {
+        int badgeHeight = mBadgeHeight;
+        int badgeWidth = mBadgeWidth;
 
         if (mBadgeBorderWidth > 0) {
             // 设置徽章边框景色
@@ -500,7 +1051,8 @@ public class BadgeViewHelper {
             // 设置徽章背景色
             mBadgePaint.setColor(mBadgeBgColor);
             // 绘制徽章背景
-            canvas.drawRoundRect(new RectF(mBadgeRectF.left + mBadgeBorderWidth, mBadgeRectF.top + mBadgeBorderWidth, mBadgeRectF.right - mBadgeBorderWidth, mBadgeRectF.bottom - mBadgeBorderWidth), (badgeHeight - 2 * mBadgeBorderWidth) / 2, (badgeHeight - 2 * mBadgeBorderWidth) / 2, mBadgePaint);
+            mBadgeInnerRectF.set(mBadgeRectF.left + mBadgeBorderWidth, mBadgeRectF.top + mBadgeBorderWidth, mBadgeRectF.right - mBadgeBorderWidth, mBadgeRectF.bottom - mBadgeBorderWidth);
+            canvas.drawRoundRect(mBadgeInnerRectF, (badgeHeight - 2 * mBadgeBorderWidth) / 2, (badgeHeight - 2 * mBadgeBorderWidth) / 2, mBadgePaint);
         } else {
             // 设置徽章背景色
             mBadgePaint.setColor(mBadgeBgColor);
@@ -516,7 +1068,7 @@ public class BadgeViewHelper {
             // 注意：绘制文本时的y是指文本底部，而不是文本的中间
             float y = mBadgeRectF.bottom - mBadgePadding;
             // 绘制徽章文本
-            canvas.drawText(badgeText, x, y, mBadgePaint);
+            canvas.drawText(mBadgeText, x, y, mBadgePaint);
         }
     }
 
@@ -533,18 +1085,49 @@ public class BadgeViewHelper {
      * @param badgeText 文本
      */
     public void showTextBadge(String badgeText) {
-        mIsShowDrawable = false;
-        mBadgeText = badgeText;
-        mIsShowBadge = true;
-        mBadge.postInvalidate();
+        if (applyTextBadge(badgeText, false)) {
+            invalidateBadge();
+        }
+    }
+
+    /**
+     * 显示数字徽章
+     * <p>
+     * 超出最大值时按 {@link #setBadgeCountOverflow(int, BadgeCountFormatter.Overflow)} 的设置显示，文本来自预先生成的字符串表
+     *
+     * @param count 数字
+     */
+    public void showTextBadge(int count) {
+        if (applyCountBadge(count)) {
+            invalidateBadge();
+        }
+    }
+
+    /**
+     * 设置数字徽章的最大值及超出时的显示方式
+     *
+     * 正在显示数字徽章时按新的设置重新格式化
+     *
+     * @param maxCount 最大值，超过 {@link BadgeCountFormatter#MAX_COUNT_LIMIT} 时按 {@link BadgeCountFormatter#MAX_COUNT_LIMIT} 处理
+     * @param overflow 超出最大值时的显示方式
+     */
+    public void setBadgeCountOverflow(int maxCount, BadgeCountFormatter.Overflow overflow) {
+        if (maxCount < 0 || overflow == null) {
+            return;
+        }
+        mCountFormatter = BadgeCountFormatter.obtain(maxCount, overflow);
+        if (mIsShowBadge && !mIsShowDrawable && mBadgeTextIsCount && applyCountBadge(mBadgeCount)) {
+            invalidateBadge();
+        }
     }
 
     /**
      * 隐藏徽章
      */
     public void hiddenBadge() {
-        mIsShowBadge = false;
-        mBadge.postInvalidate();
+        if (applyHiddenBadge()) {
+            invalidateBadge();
+        }
     }
 
     /**
@@ -562,10 +1145,9 @@ public class BadgeViewHelper {
      * @param bitmap 图片
      */
     public void showDrawable(Bitmap bitmap) {
-        mBitmap = bitmap;
-        mIsShowDrawable = true;
-        mIsShowBadge = true;
-        mBadge.postInvalidate();
+        if (applyDrawableBadge(bitmap)) {
+            invalidateBadge();
+        }
     }
 
     /**
@@ -595,6 +1177,15 @@ public class BadgeViewHelper {
         return mBadgePadding;
     }
 
+    /**
+     * 获取绘制徽章的画笔
+     *
+     * @return 画笔
+     */
+    public Paint getBadgePaint() {
+        return mBadgePaint;
+    }
+
     /**
      * 获取徽章文本
      *
@@ -667,6 +1258,355 @@ public class BadgeViewHelper {
         return mResumeTravel;
     }
 
+    /**
+     * 获取拖拽徽章弹回原位时弹簧的刚度
+     *
+     * @return 刚度
+     */
+    public float getSpringStiffness() {
+        return mSpringStiffness;
+    }
+
+    /**
+     * 获取拖拽徽章弹回原位时弹簧的阻尼比
+     *
+     * @return 阻尼比
+     */
+    public float getSpringDampingRatio() {
+        return mSpringDampingRatio;
+    }
+
+    /**
+     * 获取触发开始拖拽徽章事件的扩展触摸距离
+     *
+     * @return 扩展触摸距离
+     */
+    public int getDragExtra() {
+        return mDragExtra;
+    }
+
+    /**
+     * 获取拖拽时预测手指位置的时长
+     *
+     * @return 预测时长，毫秒，0为不预测
+     */
+    public int getDragPredictionHorizon() {
+        return mDragPredictionHorizon;
+    }
+
+    /**
+     * 拖拽及爆炸效果是否绘制在根控件的浮层中
+     *
+     * @return 是否绘制在浮层中
+     */
+    public boolean isDragOverlayEnable() {
+        return mDragOverlayEnable;
+    }
+
+    /**
+     * 徽章编辑器
+     * <p>
+     * 批量修改徽章，修改立即生效，但只在 {@link #apply()} 时重绘一次
+     */
+    public class Editor {
+        /**
+         * 本次编辑是否有变化
+         */
+        private boolean mChanged;
+
+        private Editor() {
+        }
+
+        /**
+         * 设置徽章背景颜色
+         *
+         * @param badgeBgColor 背景颜色
+         * @return 当前编辑器
+         */
+        public Editor setBadgeBgColorInt(int badgeBgColor) {
+            mChanged |= applyBadgeBgColor(badgeBgColor);
+            return this;
+        }
+
+        /**
+         * 设置徽章字体颜色
+         *
+         * @param badgeTextColor 字体颜色
+         * @return 当前编辑器
+         */
+        public Editor setBadgeTextColorInt(int badgeTextColor) {
+            mChanged |= applyBadgeTextColor(badgeTextColor);
+            return this;
+        }
+
+        /**
+         * 设置徽章字体大小
+         *
+         * @param badgeTextSize 字体大小
+         * @return 当前编辑器
+         */
+        public Editor setBadgeTextSizeSp(int badgeTextSize) {
+            mChanged |= applyBadgeTextSize(badgeTextSize);
+            return this;
+        }
+
+        /**
+         * 设置徽章垂直方向外边距
+         *
+         * @param badgeVerticalMargin 外边距
+         * @return 当前编辑器
+         */
+        public Editor setBadgeVerticalMarginDp(int badgeVerticalMargin) {
+            mChanged |= applyBadgeVerticalMargin(badgeVerticalMargin);
+            return this;
+        }
+
+        /**
+         * 设置徽章水平方向外边距
+         *
+         * @param badgeHorizontalMargin 外边距
+         * @return 当前编辑器
+         */
+        public Editor setBadgeHorizontalMarginDp(int badgeHorizontalMargin) {
+            mChanged |= applyBadgeHorizontalMargin(badgeHorizontalMargin);
+            return this;
+        }
+
+        /**
+         * 设置徽章内边距
+         *
+         * @param badgePadding 内边距
+         * @return 当前编辑器
+         */
+        public Editor setBadgePaddingDp(int badgePadding) {
+            mChanged |= applyBadgePadding(badgePadding);
+            return this;
+        }
+
+        /**
+         * 设置对齐方式
+         *
+         * @param badgeGravity 对齐方式
+         * @return 当前编辑器
+         */
+        public Editor setBadgeGravity(BadgeGravity badgeGravity) {
+            mChanged |= applyBadgeGravity(badgeGravity);
+            return this;
+        }
+
+        /**
+         * 设置边框宽度
+         *
+         * @param badgeBorderWidthDp 边框宽度
+         * @return 当前编辑器
+         */
+        public Editor setBadgeBorderWidthDp(int badgeBorderWidthDp) {
+            mChanged |= applyBadgeBorderWidth(badgeBorderWidthDp);
+            return this;
+        }
+
+        /**
+         * 设置边框颜色
+         *
+         * @param badgeBorderColor 边框颜色
+         * @return 当前编辑器
+         */
+        public Editor setBadgeBorderColorInt(int badgeBorderColor) {
+            mChanged |= applyBadgeBorderColor(badgeBorderColor);
+            return this;
+        }
+
+        /**
+         * 设置是否可拖动
+         *
+         * @param dragEnable 是否可拖动
+         * @return 当前编辑器
+         */
+        public Editor setDragEnable(boolean dragEnable) {
+            mDragEnable = dragEnable;
+            mWindowLocationTracker.update();
+            return this;
+        }
+
+        /**
+         * 显示圆点徽章
+         *
+         * @return 当前编辑器
+         */
+        public Editor showCirclePointBadge() {
+            return showTextBadge(null);
+        }
+
+        /**
+         * 显示文本徽章
+         *
+         * @param badgeText 文本
+         * @return 当前编辑器
+         */
+        public Editor showTextBadge(String badgeText) {
+            mChanged |= applyTextBadge(badgeText, false);
+            return this;
+        }
+
+        /**
+         * 显示数字徽章
+         *
+         * @param count 数字
+         * @return 当前编辑器
+         */
+        public Editor showTextBadge(int count) {
+            mChanged |= applyCountBadge(count);
+            return this;
+        }
+
+        /**
+         * 显示图片徽章
+         *
+         * @param bitmap 图片
+         * @return 当前编辑器
+         */
+        public Editor showDrawable(Bitmap bitmap) {
+            mChanged |= applyDrawableBadge(bitmap);
+            return this;
+        }
+
+        /**
+         * 隐藏徽章
+         *
+         * @return 当前编辑器
+         */
+        public Editor hiddenBadge() {
+            mChanged |= applyHiddenBadge();
+            return this;
+        }
+
+        /**
+         * 完成编辑，有变化时重绘一次
+         */
+        public void apply() {
+            if (mChanged) {
+                mChanged = false;
+                invalidateBadge();
+            }
+        }
+    }
+
+    /**
+     * 获取爆炸效果的最大碎片数
+     *
+     * @return 最大碎片数
+     */
+    public int getExplosionParticleCount() {
+        return mExplosionParticleCount;
+    }
+
+    /**
+     * 获取拖拽消失时的效果实现方式
+     *
+     * @return 实现方式
+     */
+    public DismissEngine getDismissEngine() {
+        return mDismissEngine;
+    }
+
+    /**
+     * 宿主控件在窗口中位置的跟踪器
+     * <p>
+     * 只在可拖拽且已添加到窗口时监听布局及滚动变化，变化时只标记失效，在下一次绘制前刷新，按下时无需遍历控件树。
+     * 宿主控件自身的平移在使用时计算；直接调用 offsetTopAndBottom() 等方法移动控件、或平移父控件不会触发布局及滚动回调，
+     * 缓存的位置要到下一次布局或滚动后才会更新
+     */
+    private class WindowLocationTracker implements View.OnAttachStateChangeListener,
+            ViewTreeObserver.OnGlobalLayoutListener, ViewTreeObserver.OnScrollChangedListener, ViewTreeObserver.OnPreDrawListener {
+        private ViewTreeObserver mObserver;
+
+        /**
+         * 按是否可拖拽开始或停止监听
+         */
+        void update() {
+            if (mDragEnable && mBadge.isAttachedToWindow()) {
+                register();
+            } else {
+                unregister();
+            }
+        }
+
+        /**
+         * 刷新宿主控件在窗口中的位置
+         */
+        void refresh() {
+            mBadge.getLocationInWindow(mWindowLocation);
+            // 去掉自身平移，使用时再按当前平移计算，平移动画期间无需刷新
+            mWindowLocation[0] -= Math.round(mBadge.getTranslationX());
+            mWindowLocation[1] -= Math.round(mBadge.getTranslationY());
+            mWindowLocationValid = true;
+        }
+
+        private void register() {
+            if (mObserver != null && mObserver.isAlive()) {
+                return;
+            }
+            mObserver = mBadge.getViewTreeObserver();
+            mObserver.addOnGlobalLayoutListener(this);
+            mObserver.addOnScrollChangedListener(this);
+            mObserver.addOnPreDrawListener(this);
+            refresh();
+        }
+
+        private void unregister() {
+            if (mObserver != null && mObserver.isAlive()) {
+                mObserver.removeOnGlobalLayoutListener(this);
+                mObserver.removeOnScrollChangedListener(this);
+                mObserver.removeOnPreDrawListener(this);
+            }
+            mObserver = null;
+            mWindowLocationValid = false;
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            update();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            unregister();
+        }
+
+        @Override
+        public void onGlobalLayout() {
+            mWindowLocationValid = false;
+        }
+
+        @Override
+        public void onScrollChanged() {
+            mWindowLocationValid = false;
+        }
+
+        @Override
+        public boolean onPreDraw() {
+            // 同一帧内多次布局或滚动只刷新一次，位置未变化的帧不遍历控件树
+            if (!mWindowLocationValid) {
+                refresh();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 拖拽消失效果实现方式枚举
+     */
+    public enum DismissEngine {
+        /**
+         * 每帧实时计算并绘制碎片
+         */
+        Particle,
+        /**
+         * 同一外观的徽章只模拟一次，之后播放预渲染的帧序列
+         */
+        Flipbook
+    }
+
     /**
      * 对其方式枚举
      */
@@ -48,7 +48,9 @@ public class BadgeViewUtils {
      * @param rect          bitmap区域
      * @param retryCount    重试次数
      * @return 创建的bitmap
+     * @deprecated 会绘制并持有整个窗口大小的绘图缓存，徽章快照改由 {@link ExplosionAnimatorPool#obtainSnapshotCanvas(int, int)} 提供
      */
+    @Deprecated
     public static Bitmap createBitmapSafely(DragBadgeView dragBadgeView, Rect rect, int retryCount) {
         try {
             dragBadgeView.setDrawingCacheEnabled(true);
@@ -71,8 +73,22 @@ public class BadgeViewUtils {
      * @return 距离
      */
     public static float getDistanceBetween2Points(PointF p0, PointF p1) {
-        float distance = (float) Math.sqrt(Math.pow(p0.y - p1.y, 2) + Math.pow(p0.x - p1.x, 2));
-        return distance;
+        return getDistanceBetween2Points(p0.x, p0.y, p1.x, p1.y);
+    }
+
+    /**
+     * 两点之间的距离
+     *
+     * @param x0 点1的x坐标
+     * @param y0 点1的y坐标
+     * @param x1 点2的x坐标
+     * @param y1 点2的y坐标
+     * @return 距离
+     */
+    public static float getDistanceBetween2Points(float x0, float y0, float x1, float y1) {
+        float dx = x0 - x1;
+        float dy = y0 - y1;
+        return (float) Math.sqrt(dx * dx + dy * dy);
     }
 
     /**
@@ -83,7 +99,20 @@ public class BadgeViewUtils {
      * @return 中点
      */
     public static PointF getMiddlePoint(PointF p1, PointF p2) {
-        return new PointF((p1.x + p2.x) / 2.0f, (p1.y + p2.y) / 2.0f);
+        PointF out = new PointF();
+        getMiddlePoint(p1, p2, out);
+        return out;
+    }
+
+    /**
+     * 获取中点
+     *
+     * @param p1  点1
+     * @param p2  点2
+     * @param out 用来接收中点
+     */
+    public static void getMiddlePoint(PointF p1, PointF p2, PointF out) {
+        out.set((p1.x + p2.x) / 2.0f, (p1.y + p2.y) / 2.0f);
     }
 
     /**
@@ -95,7 +124,21 @@ public class BadgeViewUtils {
      * @return 点
      */
     public static PointF getPointByPercent(PointF p1, PointF p2, float percent) {
-        return new PointF(evaluate(percent, p1.x, p2.x), evaluate(percent, p1.y, p2.y));
+        PointF out = new PointF();
+        getPointByPercent(p1, p2, percent, out);
+        return out;
+    }
+
+    /**
+     * 按比例获取两点之间的某个点
+     *
+     * @param p1      点1
+     * @param p2      点2
+     * @param percent 比例
+     * @param out     用来接收该点
+     */
+    public static void getPointByPercent(PointF p1, PointF p2, float percent, PointF out) {
+        out.set(evaluate(percent, p1.x, p2.x), evaluate(percent, p1.y, p2.y));
     }
 
     /**
@@ -107,8 +150,19 @@ public class BadgeViewUtils {
      * @return 当前值
      */
     public static Float evaluate(float fraction, Number startValue, Number endValue) {
-        float startFloat = startValue.floatValue();
-        return startFloat + fraction * (endValue.floatValue() - startFloat);
+        return evaluate(fraction, startValue.floatValue(), endValue.floatValue());
+    }
+
+    /**
+     * 按百分比计算起始值与终点值之间某个百分比的值
+     *
+     * @param fraction   百分比
+     * @param startValue 起始值
+     * @param endValue   终点值
+     * @return 当前值
+     */
+    public static float evaluate(float fraction, float startValue, float endValue) {
+        return startValue + fraction * (endValue - startValue);
     }
 
     /**
@@ -136,4 +190,35 @@ public class BadgeViewUtils {
 
         return points;
     }
+
+    /**
+     * 交点坐标
+     * <p>
+     * 过圆心且方向为(dx, dy)的直线的垂线与圆的两个交点，由单位方向向量直接得出，结果与 {@link #getIntersectionPoints(PointF, float, Double)} 一致
+     *
+     * @param pMiddle 圆中点
+     * @param radius  圆半径
+     * @param dx      直线方向x分量
+     * @param dy      直线方向y分量
+     * @param out0    用来接收交点1
+     * @param out1    用来接收交点2
+     */
+    public static void getIntersectionPoints(PointF pMiddle, float radius, float dx, float dy, PointF out0, PointF out1) {
+        float xOffset;
+        float yOffset;
+        if (dx != 0) {
+            // 斜率角在(-90°, 90°)内，方向向量统一到x正方向
+            float scale = radius / (float) Math.sqrt(dx * dx + dy * dy);
+            if (dx < 0) {
+                scale = -scale;
+            }
+            xOffset = dy * scale;
+            yOffset = dx * scale;
+        } else {
+            xOffset = radius;
+            yOffset = 0;
+        }
+        out0.set(pMiddle.x + xOffset, pMiddle.y - yOffset);
+        out1.set(pMiddle.x - xOffset, pMiddle.y + yOffset);
+    }
 }
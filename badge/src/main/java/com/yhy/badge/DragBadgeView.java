@@ -2,9 +2,8 @@ package com.yhy.badge;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
-import android.annotation.SuppressLint;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -14,13 +13,18 @@ import android.graphics.PixelFormat;
 import android.graphics.PointF;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Build;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.WindowManager;
-import android.view.animation.OvershootInterpolator;
 
 import java.lang.ref.WeakReference;
+import java.util.concurrent.Future;
 
 /**
  * author : 颜洪毅
@@ -36,9 +40,41 @@ public class DragBadgeView extends View {
     private Paint mBadgePaint;
     private WindowManager mWindowManager;
     private WindowManager.LayoutParams mLayoutParams;
+    /**
+     * 是否绘制在根控件的浮层中，而不是单独添加一个窗口
+     */
+    private boolean mOverlayMode;
+    /**
+     * 浮层所在的根控件
+     */
+    private ViewGroup mOverlayRoot;
+    /**
+     * 浮层所在根控件或拖拽窗口在屏幕上的位置，用于将触摸点的屏幕坐标转换为绘制所用坐标；分屏及自由窗口时窗口不在屏幕原点
+     */
+    private int[] mSurfaceLocation = new int[2];
     private int mStartX;
     private int mStartY;
     private ExplosionAnimator mExplosionAnimator;
+    /**
+     * 所在窗口的爆炸动画池
+     */
+    private ExplosionAnimatorPool mExplosionAnimatorPool;
+    /**
+     * 文本徽章的颜色分布，代替徽章快照生成爆炸碎片
+     */
+    private final BadgeColorField mColorField = new BadgeColorField();
+    /**
+     * 超出消失范围后在后台预先生成的爆炸动画
+     */
+    private Future<ExplosionAnimator> mPrecomputedExplosion;
+    /**
+     * 本次超出消失范围后是否已尝试预先生成，已有帧序列或无法采样时也不再重复尝试
+     */
+    private boolean mPrecomputeAttempted;
+    /**
+     * 预先生成时得到的帧序列键，不使用帧序列方式或无法采样时为null
+     */
+    private ExplosionFlipbook.Key mFlipbookKey;
     private SetExplosionAnimatorNullTask mSetExplosionAnimatorNullTask;
 
     /**
@@ -63,6 +99,14 @@ public class DragBadgeView extends View {
      * 拖拽圆中心点
      */
     private PointF mDragCenter = new PointF(0, 0);
+    /**
+     * 拖拽圆与针圆的圆心距离，拖拽位置变化时计算一次
+     */
+    private float mDragDistance;
+    /**
+     * 连接部分的路径，每帧重复使用
+     */
+    private Path mStickPath = new Path();
     /**
      * 拖拽圆半径
      */
@@ -71,7 +115,7 @@ public class DragBadgeView extends View {
     /**
      * 针圆中心点
      */
-    private PointF mStickCenter;
+    private PointF mStickCenter = new PointF(0, 0);
     /**
      * 针圆半径
      */
@@ -89,8 +133,60 @@ public class DragBadgeView extends View {
      */
     private int mDismissThreshold;
 
+    /**
+     * 拖拽中徽章所占区域
+     */
+    private RectF mBadgeRectF = new RectF();
+
     private boolean mDismissAble;
     private boolean mIsDragDisappear;
+    /**
+     * 拖拽范围的宽高，开始拖拽时获取，窗口大小变化时刷新
+     */
+    private int mBoundsWidth;
+    private int mBoundsHeight;
+
+    /**
+     * 等待下一帧处理的拖拽位置，以及期间是否曾超出消失范围
+     */
+    private float mPendingDragX;
+    private float mPendingDragY;
+    private boolean mHasPendingDrag;
+    private boolean mPendingDismissAble;
+    private boolean mDragFrameScheduled;
+    /**
+     * 拖拽位置预测器，未开启预测时为null
+     */
+    private DragTouchPredictor mTouchPredictor;
+    /**
+     * 弹回原位所用的弹簧，以及是否正在运动、是否正在弹回原位（否则为重新抓起后追随手指）
+     */
+    private final BadgeSpring mSpring = new BadgeSpring();
+    private boolean mSpringRunning;
+    private boolean mSpringReturning;
+    private final Choreographer.FrameCallback mSpringFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            try {
+                onSpringFrame();
+            } catch (Exception e) {
+                // 确保自己能被移除
+                removeSelfWithException();
+            }
+        }
+    };
+    private final Choreographer.FrameCallback mDragFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mDragFrameScheduled = false;
+            try {
+                applyDragMove(true);
+            } catch (Exception e) {
+                // 确保自己能被移除
+                removeSelfWithException();
+            }
+        }
+    };
 
     /**
      * 构造函数
@@ -102,8 +198,11 @@ public class DragBadgeView extends View {
         super(context);
         mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         mBadgeViewHelper = badgeViewHelper;
+        mOverlayMode = badgeViewHelper.isDragOverlayEnable() && badgeViewHelper.getRootView() instanceof ViewGroup;
         initBadgePaint();
-        initLayoutParams();
+        if (!mOverlayMode) {
+            initLayoutParams();
+        }
         initStick();
 
         mSetExplosionAnimatorNullTask = new SetExplosionAnimatorNullTask(this);
@@ -192,8 +291,8 @@ public class DragBadgeView extends View {
         // 设置徽章背景色
         mBadgePaint.setColor(mBadgeViewHelper.getBadgeBgColor());
         // 绘制徽章背景
-        canvas.drawRoundRect(
-                new RectF(mStartX, mStartY, mStartX + mBadgeViewHelper.getBadgeRectF().width(), mStartY + mBadgeViewHelper.getBadgeRectF().height()),
+        mBadgeRectF.set(mStartX, mStartY, mStartX + mBadgeViewHelper.getBadgeRectF().width(), mStartY + mBadgeViewHelper.getBadgeRectF().height());
+        canvas.drawRoundRect(mBadgeRectF,
                 mBadgeViewHelper.getBadgeRectF().height() / 2, mBadgeViewHelper.getBadgeRectF().height() / 2, mBadgePaint);
 
         // 设置徽章文本颜色
@@ -212,56 +311,54 @@ public class DragBadgeView extends View {
      * @param canvas 当前画布
      */
     private void drawStick(Canvas canvas) {
-        float currentStickRadius = getCurrentStickRadius();
-
-        // 2. 获取直线与圆的交点
-        float yOffset = mStickCenter.y - mDragCenter.y;
-        float xOffset = mStickCenter.x - mDragCenter.x;
-        Double lineK = null;
-        if (xOffset != 0) {
-            lineK = (double) (yOffset / xOffset);
-        }
-        // 通过几何图形工具获取交点坐标
-        mDragPoints = BadgeViewUtils.getIntersectionPoints(mDragCenter, mDragRadius, lineK);
-        mStickPoints = BadgeViewUtils.getIntersectionPoints(mStickCenter, currentStickRadius, lineK);
-
-        // 3. 获取控制点坐标
-        mControlPoint = BadgeViewUtils.getMiddlePoint(mDragCenter, mStickCenter);
-
-        if (!mIsDragDisappear) {
-            if (!mDismissAble) {
-                // 3. 画连接部分
-                Path path = new Path();
-                // 跳到点1
-                path.moveTo(mStickPoints[0].x, mStickPoints[0].y);
-                // 画曲线1 -> 2
-                path.quadTo(mControlPoint.x, mControlPoint.y, mDragPoints[0].x, mDragPoints[0].y);
-                // 画直线2 -> 3
-                path.lineTo(mDragPoints[1].x, mDragPoints[1].y);
-                // 画曲线3 -> 4
-                path.quadTo(mControlPoint.x, mControlPoint.y, mStickPoints[1].x, mStickPoints[1].y);
-                path.close();
-                canvas.drawPath(path, mBadgePaint);
-
-                // 2. 画固定圆
-                canvas.drawCircle(mStickCenter.x, mStickCenter.y, currentStickRadius, mBadgePaint);
-            }
+        if (mIsDragDisappear) {
+            return;
+        }
+        if (!mDismissAble) {
+            float currentStickRadius = getCurrentStickRadius(mDragDistance);
+
+            // 2. 获取直线与圆的交点
+            float yOffset = mStickCenter.y - mDragCenter.y;
+            float xOffset = mStickCenter.x - mDragCenter.x;
+            // 通过几何图形工具获取交点坐标
+            BadgeViewUtils.getIntersectionPoints(mDragCenter, mDragRadius, xOffset, yOffset, mDragPoints[0], mDragPoints[1]);
+            BadgeViewUtils.getIntersectionPoints(mStickCenter, currentStickRadius, xOffset, yOffset, mStickPoints[0], mStickPoints[1]);
+
+            // 3. 获取控制点坐标
+            BadgeViewUtils.getMiddlePoint(mDragCenter, mStickCenter, mControlPoint);
+
+            // 3. 画连接部分，重复使用同一个路径
+            mStickPath.reset();
+            // 跳到点1
+            mStickPath.moveTo(mStickPoints[0].x, mStickPoints[0].y);
+            // 画曲线1 -> 2
+            mStickPath.quadTo(mControlPoint.x, mControlPoint.y, mDragPoints[0].x, mDragPoints[0].y);
+            // 画直线2 -> 3
+            mStickPath.lineTo(mDragPoints[1].x, mDragPoints[1].y);
+            // 画曲线3 -> 4
+            mStickPath.quadTo(mControlPoint.x, mControlPoint.y, mStickPoints[1].x, mStickPoints[1].y);
+            mStickPath.close();
+            canvas.drawPath(mStickPath, mBadgePaint);
 
-            // 1. 画拖拽圆
-            canvas.drawCircle(mDragCenter.x, mDragCenter.y, mDragRadius, mBadgePaint);
+            // 2. 画固定圆
+            canvas.drawCircle(mStickCenter.x, mStickCenter.y, currentStickRadius, mBadgePaint);
         }
+
+        // 1. 画拖拽圆
+        canvas.drawCircle(mDragCenter.x, mDragCenter.y, mDragRadius, mBadgePaint);
     }
 
     /**
      * 获取针圆实时半径
+     *
+     * @param distance 拖拽圆与针圆的圆心距离
      */
-    private float getCurrentStickRadius() {
+    private float getCurrentStickRadius(float distance) {
         /**
          * distance 0 -> mDismissThreshold
          * percent 0.0f -> 1.0f
          * currentStickRadius mStickRadius * 100% -> mStickRadius * 20%
          */
-        float distance = BadgeViewUtils.getDistanceBetween2Points(mDragCenter, mStickCenter);
         distance = Math.min(distance, mDismissThreshold);
         float percent = distance / mDismissThreshold;
         return BadgeViewUtils.evaluate(percent, mStickRadius, mStickRadius * 0.2f);
@@ -274,7 +371,8 @@ public class DragBadgeView extends View {
      * @param y y坐标
      */
     public void setStickCenter(float x, float y) {
-        mStickCenter = new PointF(x, y);
+        mStickCenter.set(x, y);
+        mDragDistance = BadgeViewUtils.getDistanceBetween2Points(mDragCenter.x, mDragCenter.y, x, y);
     }
 
     /**
@@ -319,9 +417,31 @@ public class DragBadgeView extends View {
             mDismissAble = false;
             mIsDragDisappear = false;
 
-            mWindowManager.addView(this, mLayoutParams);
+            addSelf();
+            refreshDragBounds();
 
-            updateDragPosition(event.getRawX(), event.getRawY());
+            updateDragPosition(getLocalX(event.getRawX()), getLocalY(event.getRawY()));
+            int horizon = mBadgeViewHelper.getDragPredictionHorizon();
+            if (horizon > 0) {
+                if (mTouchPredictor == null) {
+                    mTouchPredictor = new DragTouchPredictor(horizon);
+                } else {
+                    mTouchPredictor.setHorizon(horizon);
+                }
+                mTouchPredictor.reset();
+                mTouchPredictor.addSample(event.getEventTime(), mDragCenter.x, mDragCenter.y);
+            } else {
+                mTouchPredictor = null;
+            }
+        } else if (mSpringRunning) {
+            float x = getLocalX(event.getRawX());
+            float y = getLocalY(event.getRawY());
+            // 只有按在正在弹回的徽章上才重新抓起，其他位置的触摸直接忽略
+            if (BadgeViewUtils.getDistanceBetween2Points(x, y, mDragCenter.x, mDragCenter.y) <= mDragRadius + mBadgeViewHelper.getDragExtra()) {
+                // 不重新开始，弹簧转为追随手指
+                mTouchPredictor = null;
+                regrabSpring(x, y);
+            }
         }
     }
 
@@ -331,17 +451,97 @@ public class DragBadgeView extends View {
      * @param event 当前事件
      */
     private void handleActionMove(MotionEvent event) {
+        if (isSpringReturning()) {
+            // 弹回过程中没有重新抓起，忽略触摸
+            return;
+        }
         if (mExplosionAnimator == null && getParent() != null) {
-            updateDragPosition(event.getRawX(), event.getRawY());
+            recordDragMove(event);
+            // 同一帧内的多个滑动事件合并，在下一帧统一处理
+            if (!mDragFrameScheduled) {
+                mDragFrameScheduled = true;
+                Choreographer.getInstance().postFrameCallback(mDragFrameCallback);
+            }
+        }
+    }
+
+    /**
+     * 记录滑动事件的最新位置，并检查所有历史位置是否超出过消失范围
+     *
+     * @param event 当前事件
+     */
+    private void recordDragMove(MotionEvent event) {
+        mPendingDragX = getLocalX(event.getRawX());
+        mPendingDragY = getLocalY(event.getRawY());
+        mHasPendingDrag = true;
+        // 历史位置只有相对坐标，按当前事件的偏移换算
+        float offsetX = mPendingDragX - event.getX();
+        float offsetY = mPendingDragY - event.getY();
+        for (int i = 0; i < event.getHistorySize(); i++) {
+            float x = event.getHistoricalX(i) + offsetX;
+            float y = event.getHistoricalY(i) + offsetY;
+            if (BadgeViewUtils.getDistanceBetween2Points(x, y, mStickCenter.x, mStickCenter.y) > mDismissThreshold) {
+                mPendingDismissAble = true;
+            }
+            if (mTouchPredictor != null) {
+                mTouchPredictor.addSample(event.getHistoricalEventTime(i), x, y);
+            }
+        }
+        if (mTouchPredictor != null) {
+            mTouchPredictor.addSample(event.getEventTime(), mPendingDragX, mPendingDragY);
+        }
+    }
 
-            // 处理断开事件
-            if (BadgeViewUtils.getDistanceBetween2Points(mDragCenter, mStickCenter) > mDismissThreshold) {
-                mDismissAble = true;
-                postInvalidate();
-            } else if (mBadgeViewHelper.isResumeTravel()) {
+    /**
+     * 处理合并后的滑动事件
+     *
+     * @param predict 是否绘制在预测位置，抬起时使用实际位置
+     */
+    private void applyDragMove(boolean predict) {
+        if (!mHasPendingDrag || mExplosionAnimator != null || getParent() == null) {
+            return;
+        }
+        mHasPendingDrag = false;
+        if (mSpringRunning) {
+            if (!mSpringReturning) {
+                mSpring.retarget(mPendingDragX, mPendingDragY, System.nanoTime());
+            }
+        } else if (predict && mTouchPredictor != null && mTouchPredictor.predict()) {
+            updateDragPosition(mTouchPredictor.getPredictedX(), mTouchPredictor.getPredictedY());
+        } else {
+            updateDragPosition(mPendingDragX, mPendingDragY);
+        }
+
+        // 快速滑动时中间位置可能超出过范围
+        if (mPendingDismissAble) {
+            mPendingDismissAble = false;
+            mDismissAble = true;
+        }
+        // 处理断开事件，以实际位置为准
+        float distance = BadgeViewUtils.getDistanceBetween2Points(mPendingDragX, mPendingDragY, mStickCenter.x, mStickCenter.y);
+        if (distance > mDismissThreshold) {
+            mDismissAble = true;
+            // 抬起时才消失，提前在后台生成碎片，帧序列方式同时渲染帧序列
+            if (!mPrecomputeAttempted) {
+                mPrecomputeAttempted = true;
+                precomputeExplosion();
+            }
+        } else {
+            if (mBadgeViewHelper.isResumeTravel()) {
                 mDismissAble = false;
-                postInvalidate();
             }
+            // 拖回范围内，丢弃预先生成的碎片
+            discardPrecomputedExplosion();
+        }
+    }
+
+    /**
+     * 取消尚未处理的合并帧
+     */
+    private void cancelDragFrame() {
+        if (mDragFrameScheduled) {
+            mDragFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mDragFrameCallback);
         }
     }
 
@@ -351,15 +551,24 @@ public class DragBadgeView extends View {
      * @param event 当前事件
      */
     private void handleActionUp(MotionEvent event) {
-        handleActionMove(event);
+        if (isSpringReturning()) {
+            return;
+        }
+        // 抬起时立即处理，不等下一帧
+        cancelDragFrame();
+        if (mExplosionAnimator == null && getParent() != null) {
+            recordDragMove(event);
+        }
+        applyDragMove(false);
 
         if (mDismissAble) {
+            stopSpring();
             // 拖拽点超出过范围
-            if (BadgeViewUtils.getDistanceBetween2Points(mDragCenter, mStickCenter) > mDismissThreshold) {
+            if (mDragDistance > mDismissThreshold) {
                 // 现在也超出范围,消失
                 try {
                     mIsDragDisappear = true;
-                    startDismissAnim(getNewStartX(event.getRawX()), getNewStartY(event.getRawY()));
+                    startDismissAnim(getNewStartX(getLocalX(event.getRawX())), getNewStartY(getLocalY(event.getRawY())));
                 } catch (Exception e) {
                     removeSelf();
                     mBadgeViewHelper.endDragWithDismiss();
@@ -383,39 +592,80 @@ public class DragBadgeView extends View {
     /**
      * 开始动画
      */
-    @SuppressLint("WrongConstant")
     private void startSpringAnim() {
-        final PointF startReleaseDragCenter = new PointF(mDragCenter.x, mDragCenter.y);
-        ValueAnimator springAnim = ValueAnimator.ofFloat(1.0f);
-        springAnim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        long now = System.nanoTime();
+        if (mSpringRunning) {
+            // 重新抓起后再次松手，从当前位置和速度继续弹回
+            mSpring.retarget(mStickCenter.x, mStickCenter.y, now);
+        } else {
+            mSpring.setStiffness(mBadgeViewHelper.getSpringStiffness());
+            mSpring.setDampingRatio(mBadgeViewHelper.getSpringDampingRatio());
+            mSpring.start(mDragCenter.x, mDragCenter.y, 0, 0, mStickCenter.x, mStickCenter.y, now);
+            mSpringRunning = true;
+            Choreographer.getInstance().postFrameCallback(mSpringFrameCallback);
+        }
+        mSpringReturning = true;
+    }
 
-            @Override
-            public void onAnimationUpdate(ValueAnimator mAnim) {
-                // 0.0 -> 1.0f
-                float percent = mAnim.getAnimatedFraction();
-                PointF p = BadgeViewUtils.getPointByPercent(startReleaseDragCenter, mStickCenter, percent);
-                updateDragPosition(p.x, p.y);
-            }
-        });
-        springAnim.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                removeSelf();
-                mBadgeViewHelper.endDragWithoutDismiss();
-            }
+    /**
+     * 弹回过程中重新抓起，弹簧改为追随手指
+     *
+     * @param x 手指x坐标
+     * @param y 手指y坐标
+     */
+    private void regrabSpring(float x, float y) {
+        mSpringReturning = false;
+        mSpring.retarget(x, y, System.nanoTime());
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                removeSelf();
-                mBadgeViewHelper.endDragWithoutDismiss();
-            }
-        });
+    /**
+     * 弹簧每帧的位置更新
+     */
+    private void onSpringFrame() {
+        if (!mSpringRunning) {
+            return;
+        }
+        // 与 start()、retarget() 使用同一时间基准，不用帧时刻，它早于同一帧内的 System.nanoTime()
+        boolean moving = mSpring.update(System.nanoTime());
+        updateDragPosition(mSpring.getX(), mSpring.getY());
+        if (moving) {
+            Choreographer.getInstance().postFrameCallback(mSpringFrameCallback);
+            return;
+        }
+        mSpringRunning = false;
+        if (mSpringReturning) {
+            // 已回到原位
+            removeSelf();
+            mBadgeViewHelper.endDragWithoutDismiss();
+        }
+    }
+
+    /**
+     * 弹簧是否正在运动，包括弹回原位及被重新抓起后追随手指
+     *
+     * @return 是否正在运动
+     */
+    boolean isSpringRunning() {
+        return mSpringRunning;
+    }
 
-        springAnim.setInterpolator(new OvershootInterpolator(4));
-        springAnim.setRepeatCount(1);
-        springAnim.setRepeatMode(ValueAnimator.INFINITE);
-        springAnim.setDuration(ExplosionAnimator.ANIM_DURATION / 2);
-        springAnim.start();
+    /**
+     * 是否正在弹回原位，且没有被重新抓起
+     *
+     * @return 是否正在弹回原位
+     */
+    private boolean isSpringReturning() {
+        return mSpringRunning && mSpringReturning;
+    }
+
+    /**
+     * 停止弹簧
+     */
+    private void stopSpring() {
+        if (mSpringRunning) {
+            mSpringRunning = false;
+            Choreographer.getInstance().removeFrameCallback(mSpringFrameCallback);
+        }
     }
 
     /**
@@ -429,45 +679,287 @@ public class DragBadgeView extends View {
         int badgeHeight = (int) mBadgeViewHelper.getBadgeRectF().height();
         Rect rect = new Rect(newX - badgeWidth / 2, newY - badgeHeight / 2, newX + badgeWidth / 2, newY + badgeHeight / 2);
 
-        Bitmap badgeBitmap = BadgeViewUtils.createBitmapSafely(this, rect, 1);
-        if (badgeBitmap == null) {
+        if (mExplosionAnimator != null) {
             removeSelf();
             mBadgeViewHelper.endDragWithDismiss();
             return;
         }
 
-        if (mExplosionAnimator != null) {
-            removeSelf();
-            mBadgeViewHelper.endDragWithDismiss();
-            return;
+        mExplosionAnimatorPool = ExplosionAnimatorPool.get(mBadgeViewHelper.getRootView());
+        int particleCount = mBadgeViewHelper.getExplosionParticleCount();
+        boolean showDrawable = mBadgeViewHelper.isShowDrawable();
+        // 超出消失范围时已在预先生成中得到帧序列键，这里不再重复计算
+        ExplosionFlipbook.Key flipbookKey = mFlipbookKey;
+        if (flipbookKey != null) {
+            ExplosionFlipbook flipbook = ExplosionFlipbook.get(flipbookKey);
+            if (flipbook != null) {
+                mExplosionAnimator = mExplosionAnimatorPool.acquire(this, rect, flipbook);
+                flipbookKey = null;
+            }
         }
 
-        mExplosionAnimator = new ExplosionAnimator(this, rect, badgeBitmap);
+        if (mExplosionAnimator == null) {
+            ExplosionAnimator precomputed = takePrecomputedExplosion();
+            if (precomputed != null) {
+                precomputed.offsetTo(rect.left, rect.top);
+                mExplosionAnimator = precomputed;
+            } else if (showDrawable) {
+                Bitmap badgeBitmap = snapshotBadge(badgeWidth, badgeHeight);
+                if (badgeBitmap == null) {
+                    removeSelf();
+                    mBadgeViewHelper.endDragWithDismiss();
+                    return;
+                }
+                mExplosionAnimator = mExplosionAnimatorPool.acquire(this, rect, badgeBitmap, particleCount);
+            } else {
+                // 文本徽章及圆点徽章的颜色可以直接计算，不需要绘制快照；只有没有帧序列和预先生成的碎片时才计算
+                mColorField.set(badgeWidth, badgeHeight, mBadgeViewHelper.getBadgePadding(), mBadgeViewHelper.getBadgeBgColor(),
+                        mBadgeViewHelper.getBadgeTextColor(), !TextUtils.isEmpty(mBadgeViewHelper.getBadgeText()));
+                mColorField.setText(mBadgeViewHelper.getBadgePaint(), mBadgeViewHelper.getBadgeText());
+                mExplosionAnimator = mExplosionAnimatorPool.acquire(this, rect, mColorField, particleCount);
+            }
+            if (flipbookKey != null && precomputed == null) {
+                // 来不及预先渲染帧序列，本次播放碎片，帧序列在后台渲染供之后复用
+                if (!showDrawable) {
+                    BadgeColorField colorField = new BadgeColorField();
+                    colorField.set(mColorField);
+                    mExplosionAnimatorPool.bakeFlipbook(this, badgeWidth, badgeHeight, colorField, null, particleCount, flipbookKey);
+                } else if (isSampleableBitmap(mBadgeViewHelper.getBitmap(), badgeWidth, badgeHeight)) {
+                    mExplosionAnimatorPool.bakeFlipbook(this, badgeWidth, badgeHeight, null, mBadgeViewHelper.getBitmap(), particleCount, flipbookKey);
+                }
+            }
+        }
         mExplosionAnimator.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
                 removeSelf();
+                releaseExplosionAnimator((ExplosionAnimator) animation);
                 mBadgeViewHelper.endDragWithDismiss();
             }
 
             @Override
             public void onAnimationCancel(Animator animation) {
                 removeSelf();
+                releaseExplosionAnimator((ExplosionAnimator) animation);
                 mBadgeViewHelper.endDragWithDismiss();
             }
         });
         mExplosionAnimator.start();
     }
 
+    /**
+     * 在后台线程中预先生成爆炸碎片
+     * <p>
+     * 每次超出消失范围只调用一次，帧序列方式同时记录帧序列键供抬起时使用
+     */
+    private void precomputeExplosion() {
+        int badgeWidth = (int) mBadgeViewHelper.getBadgeRectF().width();
+        int badgeHeight = (int) mBadgeViewHelper.getBadgeRectF().height();
+        int particleCount = mBadgeViewHelper.getExplosionParticleCount();
+        ExplosionAnimatorPool pool = ExplosionAnimatorPool.get(mBadgeViewHelper.getRootView());
+        boolean flipbookEngine = mBadgeViewHelper.getDismissEngine() == BadgeViewHelper.DismissEngine.Flipbook;
+        if (mBadgeViewHelper.isShowDrawable()) {
+            // 图片徽章原样绘制图片，直接从图片中采样
+            Bitmap bitmap = mBadgeViewHelper.getBitmap();
+            if (!isSampleableBitmap(bitmap, badgeWidth, badgeHeight)) {
+                return;
+            }
+            ExplosionFlipbook.Key flipbookKey = flipbookEngine ? new ExplosionFlipbook.Key(bitmap, particleCount) : null;
+            mFlipbookKey = flipbookKey;
+            if (flipbookKey != null && ExplosionFlipbook.get(flipbookKey) != null) {
+                // 已有帧序列，抬起时直接播放
+                return;
+            }
+            mPrecomputedExplosion = pool.precompute(this, badgeWidth, badgeHeight, null, bitmap, particleCount, flipbookKey);
+        } else {
+            // 每次新建，后台线程读取期间不会被修改
+            BadgeColorField colorField = new BadgeColorField();
+            colorField.set(badgeWidth, badgeHeight, mBadgeViewHelper.getBadgePadding(), mBadgeViewHelper.getBadgeBgColor(),
+                    mBadgeViewHelper.getBadgeTextColor(), !TextUtils.isEmpty(mBadgeViewHelper.getBadgeText()));
+            colorField.setText(mBadgeViewHelper.getBadgePaint(), mBadgeViewHelper.getBadgeText());
+            ExplosionFlipbook.Key flipbookKey = flipbookEngine ? new ExplosionFlipbook.Key(colorField, particleCount) : null;
+            mFlipbookKey = flipbookKey;
+            if (flipbookKey != null && ExplosionFlipbook.get(flipbookKey) != null) {
+                return;
+            }
+            mPrecomputedExplosion = pool.precompute(this, badgeWidth, badgeHeight, colorField, null, particleCount, flipbookKey);
+        }
+    }
+
+    /**
+     * 图片是否可以在后台线程中直接采样，即与拖拽时绘制的徽章大小一致
+     *
+     * @param bitmap      徽章图片
+     * @param badgeWidth  徽章宽度
+     * @param badgeHeight 徽章高度
+     * @return 是否可以采样
+     */
+    private boolean isSampleableBitmap(Bitmap bitmap, int badgeWidth, int badgeHeight) {
+        return bitmap != null && !bitmap.isRecycled() && bitmap.getWidth() == badgeWidth && bitmap.getHeight() == badgeHeight;
+    }
+
+    /**
+     * 取出已生成完成的爆炸动画
+     *
+     * @return 爆炸动画，尚未生成完成时返回null
+     */
+    private ExplosionAnimator takePrecomputedExplosion() {
+        Future<ExplosionAnimator> future = mPrecomputedExplosion;
+        if (future == null) {
+            return null;
+        }
+        mPrecomputedExplosion = null;
+        if (future.isDone() && !future.isCancelled()) {
+            try {
+                return future.get();
+            } catch (Exception ignored) {
+                return null;
+            }
+        }
+        // 来不及生成时按原方式同步生成
+        future.cancel(false);
+        return null;
+    }
+
+    /**
+     * 丢弃预先生成的爆炸动画，下次超出消失范围时重新生成
+     */
+    private void discardPrecomputedExplosion() {
+        mPrecomputeAttempted = false;
+        mFlipbookKey = null;
+        if (mPrecomputedExplosion != null) {
+            ExplosionAnimatorPool.get(mBadgeViewHelper.getRootView()).discard(mPrecomputedExplosion);
+            mPrecomputedExplosion = null;
+        }
+    }
+
+    /**
+     * 只将图片徽章绘制到与徽章大小一致的复用位图中
+     *
+     * @param badgeWidth  徽章宽度
+     * @param badgeHeight 徽章高度
+     * @return 徽章快照，内存不足时返回null
+     */
+    private Bitmap snapshotBadge(int badgeWidth, int badgeHeight) {
+        Canvas canvas = mExplosionAnimatorPool.obtainSnapshotCanvas(badgeWidth, badgeHeight);
+        if (canvas == null) {
+            return null;
+        }
+        canvas.save();
+        canvas.translate(-mStartX, -mStartY);
+        drawDrawableBadge(canvas);
+        canvas.restore();
+        return mExplosionAnimatorPool.getSnapshot();
+    }
+
+    /**
+     * 将爆炸动画归还到动画池
+     *
+     * @param animator 爆炸动画
+     */
+    private void releaseExplosionAnimator(ExplosionAnimator animator) {
+        if (mExplosionAnimatorPool != null) {
+            mExplosionAnimatorPool.release(animator);
+        }
+    }
+
+    /**
+     * 刷新拖拽范围，开始拖拽及窗口大小变化时调用
+     */
+    private void refreshDragBounds() {
+        if (mOverlayMode) {
+            mBoundsWidth = mOverlayRoot.getWidth();
+            mBoundsHeight = mOverlayRoot.getHeight();
+        } else if (getWidth() > 0 && getHeight() > 0) {
+            // 已布局时自身即铺满窗口
+            mBoundsWidth = getWidth();
+            mBoundsHeight = getHeight();
+            getLocationOnScreen(mSurfaceLocation);
+        } else {
+            // 尚未布局，拖拽窗口铺满宿主控件所在窗口，以其根控件推算窗口的位置和大小
+            View root = mBadgeViewHelper.getRootView();
+            root.getLocationOnScreen(mSurfaceLocation);
+            if (root.getWidth() > 0 && root.getHeight() > 0) {
+                mBoundsWidth = root.getWidth();
+                mBoundsHeight = root.getHeight();
+            } else {
+                refreshWindowBounds();
+            }
+        }
+    }
+
+    /**
+     * 根控件尚未布局时，按窗口或屏幕大小设置拖拽范围
+     */
+    private void refreshWindowBounds() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // 窗口实际大小，分屏及折叠屏时与屏幕大小不同
+            Rect bounds = mWindowManager.getCurrentWindowMetrics().getBounds();
+            mBoundsWidth = bounds.width();
+            mBoundsHeight = bounds.height();
+        } else {
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            mBoundsWidth = metrics.widthPixels;
+            mBoundsHeight = metrics.heightPixels;
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (w > 0 && h > 0) {
+            mBoundsWidth = w;
+            mBoundsHeight = h;
+            if (!mOverlayMode) {
+                // 拖拽窗口布局完成，以其实际位置为准
+                getLocationOnScreen(mSurfaceLocation);
+            }
+        }
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (getParent() != null) {
+            refreshDragBounds();
+        }
+    }
+
+    /**
+     * 将徽章自身添加到浮层或窗口中
+     */
+    private void addSelf() {
+        if (mOverlayMode) {
+            mOverlayRoot = (ViewGroup) mBadgeViewHelper.getRootView();
+            mOverlayRoot.getLocationOnScreen(mSurfaceLocation);
+            // 浮层不会测量和布局其中的控件，需手动铺满根控件
+            measure(MeasureSpec.makeMeasureSpec(mOverlayRoot.getWidth(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(mOverlayRoot.getHeight(), MeasureSpec.EXACTLY));
+            layout(0, 0, mOverlayRoot.getWidth(), mOverlayRoot.getHeight());
+            mOverlayRoot.getOverlay().add(this);
+        } else {
+            mWindowManager.addView(this, mLayoutParams);
+        }
+    }
+
     /**
      * 徽章自身移除
      */
     private void removeSelf() {
         if (getParent() != null) {
-            mWindowManager.removeView(this);
+            if (mOverlayMode) {
+                mOverlayRoot.getOverlay().remove(this);
+            } else {
+                mWindowManager.removeView(this);
+            }
         }
         mDismissAble = false;
         mIsDragDisappear = false;
+        cancelDragFrame();
+        mHasPendingDrag = false;
+        mPendingDismissAble = false;
+        stopSpring();
+        discardPrecomputedExplosion();
 
         // 处理有时候爆炸效果结束后出现一瞬间的拖拽效果
         postDelayed(mSetExplosionAnimatorNullTask, 60);
@@ -476,12 +968,50 @@ public class DragBadgeView extends View {
     /**
      * 修改拖拽位置
      */
-    private void updateDragPosition(float rawX, float rawY) {
-        mStartX = getNewStartX(rawX);
-        mStartY = getNewStartY(rawY);
+    private void updateDragPosition(float x, float y) {
+        mStartX = getNewStartX(x);
+        mStartY = getNewStartY(y);
+
+        mDragCenter.set(x, y);
+        mDragDistance = BadgeViewUtils.getDistanceBetween2Points(x, y, mStickCenter.x, mStickCenter.y);
+        // 只在主线程中调用，直接刷新，避免再等一帧
+        invalidate();
+    }
+
+    /**
+     * 刷新爆炸碎片所在区域
+     * <p>
+     * 开启硬件加速时脏区域会被忽略，直接刷新整个控件；只有软件绘制时才使用已废弃的局部刷新
+     *
+     * @param dirty 需要刷新的区域
+     */
+    @SuppressWarnings("deprecation")
+    void invalidateExplosion(Rect dirty) {
+        if (isHardwareAccelerated()) {
+            invalidate();
+        } else {
+            invalidate(dirty);
+        }
+    }
 
-        mDragCenter.set(rawX, rawY);
-        postInvalidate();
+    /**
+     * 将屏幕x坐标转换为绘制所用坐标
+     *
+     * @param rawX 屏幕x坐标
+     * @return 绘制所用x坐标
+     */
+    private float getLocalX(float rawX) {
+        return rawX - mSurfaceLocation[0];
+    }
+
+    /**
+     * 将屏幕y坐标转换为绘制所用坐标
+     *
+     * @param rawY 屏幕y坐标
+     * @return 绘制所用y坐标
+     */
+    private float getLocalY(float rawY) {
+        return rawY - mSurfaceLocation[1];
     }
 
     /**
@@ -496,8 +1026,8 @@ public class DragBadgeView extends View {
         if (newX < 0) {
             newX = 0;
         }
-        if (newX > mWindowManager.getDefaultDisplay().getWidth() - badgeWidth) {
-            newX = mWindowManager.getDefaultDisplay().getWidth() - badgeWidth;
+        if (newX > mBoundsWidth - badgeWidth) {
+            newX = mBoundsWidth - badgeWidth;
         }
         return newX;
     }
@@ -510,7 +1040,7 @@ public class DragBadgeView extends View {
      */
     private int getNewStartY(float rawY) {
         int badgeHeight = (int) mBadgeViewHelper.getBadgeRectF().height();
-        int maxNewY = getHeight() - badgeHeight;
+        int maxNewY = mBoundsHeight - badgeHeight;
         int newStartY = (int) rawY - badgeHeight / 2;
         return Math.min(Math.max(0, newStartY), maxNewY);
     }
@@ -520,7 +1050,7 @@ public class DragBadgeView extends View {
      */
     private void removeSelfWithException() {
         removeSelf();
-        if (BadgeViewUtils.getDistanceBetween2Points(mDragCenter, mStickCenter) > mDismissThreshold) {
+        if (mDragDistance > mDismissThreshold) {
             mBadgeViewHelper.endDragWithDismiss();
         } else {
             mBadgeViewHelper.endDragWithoutDismiss();
@@ -0,0 +1,148 @@
+package com.yhy.badge;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 16:40
+ * version: 1.0.0
+ * desc   : 拖拽位置预测器
+ * <p>
+ * 根据最近的触摸位置估算手指速度，将拖拽位置向前外推一段时间，以抵消触摸到显示之间的延迟；
+ * 手指转向时不外推，外推距离也不超过最近一段时间内实际移动的距离
+ */
+public class DragTouchPredictor {
+    /**
+     * 保留的位置数
+     */
+    private static final int MAX_SAMPLES = 4;
+    /**
+     * 参与计算速度的位置的最大时间跨度，毫秒
+     */
+    private static final long MAX_SAMPLE_AGE = 40;
+
+    private final long[] mTimes = new long[MAX_SAMPLES];
+    private final float[] mXs = new float[MAX_SAMPLES];
+    private final float[] mYs = new float[MAX_SAMPLES];
+    private int mSize;
+    /**
+     * 最新位置的下标
+     */
+    private int mHead = -1;
+    /**
+     * 预测时长，毫秒
+     */
+    private long mHorizon;
+    private float mPredictedX;
+    private float mPredictedY;
+
+    /**
+     * 构造函数
+     *
+     * @param horizon 预测时长，毫秒
+     */
+    public DragTouchPredictor(long horizon) {
+        setHorizon(horizon);
+    }
+
+    /**
+     * 设置预测时长
+     *
+     * @param horizon 预测时长，毫秒
+     */
+    public void setHorizon(long horizon) {
+        mHorizon = Math.max(horizon, 0);
+    }
+
+    /**
+     * 获取预测时长
+     *
+     * @return 预测时长，毫秒
+     */
+    public long getHorizon() {
+        return mHorizon;
+    }
+
+    /**
+     * 清空所有位置，开始新的拖拽时调用
+     */
+    public void reset() {
+        mSize = 0;
+        mHead = -1;
+    }
+
+    /**
+     * 添加触摸位置，时间需递增
+     *
+     * @param time 事件时间，毫秒
+     * @param x    x坐标
+     * @param y    y坐标
+     */
+    public void addSample(long time, float x, float y) {
+        if (mSize > 0 && time < mTimes[mHead]) {
+            return;
+        }
+        mHead = (mHead + 1) % MAX_SAMPLES;
+        mTimes[mHead] = time;
+        mXs[mHead] = x;
+        mYs[mHead] = y;
+        mSize = Math.min(mSize + 1, MAX_SAMPLES);
+    }
+
+    /**
+     * 预测预测时长之后的位置，结果通过 {@link #getPredictedX()} 和 {@link #getPredictedY()} 获取
+     *
+     * @return 是否进行了外推，否则预测位置即最新位置
+     */
+    public boolean predict() {
+        if (mSize == 0) {
+            return false;
+        }
+        float x = mXs[mHead];
+        float y = mYs[mHead];
+        mPredictedX = x;
+        mPredictedY = y;
+        if (mSize < 2 || mHorizon == 0) {
+            return false;
+        }
+
+        // 时间跨度内最早的位置
+        int previous = (mHead - 1 + MAX_SAMPLES) % MAX_SAMPLES;
+        int oldest = previous;
+        for (int i = 2; i < mSize; i++) {
+            int index = (mHead - i + MAX_SAMPLES) % MAX_SAMPLES;
+            if (mTimes[mHead] - mTimes[index] > MAX_SAMPLE_AGE) {
+                break;
+            }
+            oldest = index;
+        }
+        long dt = mTimes[mHead] - mTimes[oldest];
+        if (dt <= 0 || dt > MAX_SAMPLE_AGE) {
+            return false;
+        }
+        float dx = x - mXs[oldest];
+        float dy = y - mYs[oldest];
+        // 最后一段与整体方向相反，说明手指正在转向
+        float lastDx = x - mXs[previous];
+        float lastDy = y - mYs[previous];
+        if (dx * lastDx + dy * lastDy <= 0) {
+            return false;
+        }
+
+        float scale = (float) mHorizon / dt;
+        // 外推距离不超过时间跨度内实际移动的距离
+        if (scale > 1f) {
+            scale = 1f;
+        }
+        mPredictedX = x + dx * scale;
+        mPredictedY = y + dy * scale;
+        return true;
+    }
+
+    public float getPredictedX() {
+        return mPredictedX;
+    }
+
+    public float getPredictedY() {
+        return mPredictedY;
+    }
+}
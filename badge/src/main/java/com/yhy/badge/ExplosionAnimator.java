@@ -9,6 +9,7 @@ import android.graphics.Rect;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Interpolator;
 
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -19,21 +20,107 @@ import java.util.Random;
  * desc   : 爆炸效果动画
  */
 @SuppressWarnings("WeakerAccess")
-public class ExplosionAnimator extends ValueAnimator {
+public class ExplosionAnimator extends ValueAnimator implements ValueAnimator.AnimatorUpdateListener {
     public static final int ANIM_DURATION = 300;
+    /**
+     * 默认最大碎片数
+     */
+    public static final int DEFAULT_PARTICLE_COUNT = 225;
     private static final Interpolator DEFAULT_INTERPOLATOR = new AccelerateInterpolator(0.6f);
     private static final float END_VALUE = 1.4f;
-    private static final int REFRESH_RATIO = 3;
-    private static float X;
-    private static float Y;
-    private static float V;
-    private static float W;
+    /**
+     * 碎片网格每边的最少碎片数
+     */
+    private static final int MIN_PART_LEN = 4;
+    /**
+     * 批量绘制时的最大颜色数，超出时归入最接近的颜色
+     */
+    private static final int MAX_PALETTE = 8;
+    /**
+     * 批量绘制时透明度的分级数
+     */
+    private static final int ALPHA_LEVELS = 4;
+    /**
+     * 批量绘制时半径的分级数
+     */
+    private static final int RADIUS_LEVELS = 4;
+    private static final int BUCKET_COUNT = MAX_PALETTE * ALPHA_LEVELS * RADIUS_LEVELS;
+    /**
+     * 碎片最大半径
+     */
+    private float mMaxRadius;
+    /**
+     * 碎片初始位置的随机范围
+     */
+    private float mSpread;
+    /**
+     * 碎片初始半径
+     */
+    private float mBaseParticleRadius;
+    /**
+     * 碎片最小半径
+     */
+    private float mMinRadius;
 
-    private Particle[] mParticles;
+    /**
+     * 碎片数
+     */
+    private int mCount;
+    /**
+     * 碎片属性，按数组存放，下标即碎片序号
+     */
+    private int[] mColor;
+    private float[] mAlpha;
+    private float[] mCx;
+    private float[] mCy;
+    private float[] mRadius;
+    private float[] mBaseCx;
+    private float[] mBaseCy;
+    private float[] mBaseRadius;
+    private float[] mBottom;
+    private float[] mMag;
+    private float[] mNeg;
+    private float[] mLife;
+    private float[] mOverflow;
+    /**
+     * 批量绘制所用的调色板、碎片对应的颜色序号及分组
+     */
+    private final int[] mPalette = new int[MAX_PALETTE];
+    private int mPaletteSize;
+    private int[] mColorIndex;
+    private int[] mBucket;
+    private final int[] mBucketSize = new int[BUCKET_COUNT];
+    private final int[] mBucketStart = new int[BUCKET_COUNT];
+    /**
+     * 按分组排列的碎片坐标，每组一次 drawPoints
+     */
+    private float[] mPoints;
+    /**
+     * 采样颜色时复用的像素数组
+     */
+    private int[] mPixels;
+    /**
+     * 各半径分级对应的半径
+     */
+    private float mRadiusStep;
     private Paint mPaint;
+    private Random mRandom;
     private DragBadgeView mDragBadgeView;
     private Rect mRect;
-    private Rect mInvalidateRect;
+    /**
+     * 上一帧与当前帧可见碎片的包围区域
+     */
+    private final Rect mLastBounds = new Rect();
+    private final Rect mBounds = new Rect();
+    /**
+     * 碎片是否已全部消失
+     */
+    private boolean mFinished;
+    /**
+     * 播放的帧序列，不为null时不再实时计算碎片
+     */
+    private ExplosionFlipbook mFlipbook;
+    private int mFrame;
 
     /**
      * 构造函数
@@ -43,71 +130,359 @@ public class ExplosionAnimator extends ValueAnimator {
      * @param bitmap        图片
      */
     public ExplosionAnimator(DragBadgeView dragBadgeView, Rect rect, Bitmap bitmap) {
+        this(dragBadgeView, rect, bitmap, DEFAULT_PARTICLE_COUNT);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param bitmap           图片
+     * @param maxParticleCount 最大碎片数，实际碎片数还会随徽章大小减少
+     */
+    public ExplosionAnimator(DragBadgeView dragBadgeView, Rect rect, Bitmap bitmap, int maxParticleCount) {
+        init();
+        reset(dragBadgeView, rect, bitmap, maxParticleCount);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param colorField       徽章颜色分布
+     * @param maxParticleCount 最大碎片数，实际碎片数还会随徽章大小减少
+     */
+    public ExplosionAnimator(DragBadgeView dragBadgeView, Rect rect, BadgeColorField colorField, int maxParticleCount) {
+        init();
+        reset(dragBadgeView, rect, colorField, maxParticleCount);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param dragBadgeView 可拖拽的徽章控件
+     * @param rect          拖动区域
+     * @param flipbook      帧序列
+     */
+    public ExplosionAnimator(DragBadgeView dragBadgeView, Rect rect, ExplosionFlipbook flipbook) {
+        init();
+        reset(dragBadgeView, rect, flipbook);
+    }
+
+    /**
+     * 初始化动画参数及复用的对象
+     */
+    private void init() {
         setFloatValues(0.0f, END_VALUE);
         setDuration(ANIM_DURATION);
         setInterpolator(DEFAULT_INTERPOLATOR);
 
-        X = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 5);
-        Y = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 20);
-        V = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 2);
-        W = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 1);
-
         mPaint = new Paint();
-        mDragBadgeView = dragBadgeView;
-        mRect = rect;
-        mInvalidateRect = new Rect(mRect.left - mRect.width() * REFRESH_RATIO, mRect.top - mRect.height() * REFRESH_RATIO, mRect.right + mRect.width() * REFRESH_RATIO, mRect.bottom + mRect.height() * REFRESH_RATIO);
-
-        int partLen = 15;
-        mParticles = new Particle[partLen * partLen];
-        Random random = new Random(System.currentTimeMillis());
-        int w = bitmap.getWidth() / (partLen + 2);
-        int h = bitmap.getHeight() / (partLen + 2);
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+        mRandom = new Random();
+        mRect = new Rect();
+        // 动画每帧由 Choreographer 驱动，在此计算碎片状态及需要刷新的区域
+        addUpdateListener(this);
+    }
+
+    /**
+     * 重置动画，用于重复使用同一个动画对象
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param bitmap           图片
+     * @param maxParticleCount 最大碎片数，实际碎片数还会随徽章大小减少
+     */
+    public void reset(DragBadgeView dragBadgeView, Rect rect, Bitmap bitmap, int maxParticleCount) {
+        int partLen = prepare(dragBadgeView, rect, maxParticleCount);
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        // 一次性读取所有像素，避免逐个 getPixel
+        if (mPixels == null || mPixels.length < width * height) {
+            mPixels = new int[width * height];
+        }
+        bitmap.getPixels(mPixels, 0, width, 0, 0, width, height);
+        int w = width / (partLen + 2);
+        int h = height / (partLen + 2);
         // 生成爆炸碎片点
+        for (int i = 0; i < partLen; i++) {
+            int row = (i + 1) * h * width;
+            for (int j = 0; j < partLen; j++) {
+                generateParticle((i * partLen) + j, mPixels[row + (j + 1) * w], mRandom);
+            }
+        }
+    }
+
+    /**
+     * 按徽章颜色分布重置动画，不需要徽章位图
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param colorField       徽章颜色分布
+     * @param maxParticleCount 最大碎片数，实际碎片数还会随徽章大小减少
+     */
+    public void reset(DragBadgeView dragBadgeView, Rect rect, BadgeColorField colorField, int maxParticleCount) {
+        int partLen = prepare(dragBadgeView, rect, maxParticleCount);
+        int w = colorField.getWidth() / (partLen + 2);
+        int h = colorField.getHeight() / (partLen + 2);
+        // 生成爆炸碎片点，采样位置与位图方式一致
         for (int i = 0; i < partLen; i++) {
             for (int j = 0; j < partLen; j++) {
-                mParticles[(i * partLen) + j] = generateParticle(bitmap.getPixel((j + 1) * w, (i + 1) * h), random);
+                // 低差异序列作为抖动阈值，文本色碎片均匀分布在文本区域内
+                float threshold = (j * 0.7548777f + i * 0.5698403f) % 1f;
+                generateParticle((i * partLen) + j, colorField.colorAt((j + 1) * w, (i + 1) * h, threshold), mRandom);
             }
         }
     }
 
+    /**
+     * 重置碎片以外的状态并分配碎片数组
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param maxParticleCount 最大碎片数
+     * @return 碎片网格每边的碎片数
+     */
+    private int prepare(DragBadgeView dragBadgeView, Rect rect, int maxParticleCount) {
+        mMaxRadius = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 5);
+        mSpread = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 20);
+        mBaseParticleRadius = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 2);
+        mMinRadius = BadgeViewUtils.dp2px(dragBadgeView.getContext(), 1);
+
+        mDragBadgeView = dragBadgeView;
+        mRect.set(rect);
+        mLastBounds.setEmpty();
+        mFinished = false;
+        mFlipbook = null;
+
+        int partLen = getPartLen(maxParticleCount);
+        allocParticles(partLen * partLen);
+        mPaletteSize = 0;
+        mRadiusStep = (mBaseParticleRadius + (mMaxRadius - mBaseParticleRadius) * END_VALUE) / RADIUS_LEVELS;
+        mRandom.setSeed(System.currentTimeMillis());
+        return partLen;
+    }
+
+    /**
+     * 重置为播放帧序列，不生成碎片
+     *
+     * @param dragBadgeView 可拖拽的徽章控件
+     * @param rect          拖动区域
+     * @param flipbook      帧序列
+     */
+    public void reset(DragBadgeView dragBadgeView, Rect rect, ExplosionFlipbook flipbook) {
+        mDragBadgeView = dragBadgeView;
+        mRect.set(rect);
+        mLastBounds.setEmpty();
+        mFinished = false;
+        mCount = 0;
+        mFlipbook = flipbook;
+        mFrame = 0;
+    }
+
+    /**
+     * 将当前碎片的整个爆炸过程渲染为帧序列，之后改为播放帧序列
+     *
+     * @return 帧序列，没有可见碎片或内存不足时返回null
+     */
+    public ExplosionFlipbook renderFlipbook() {
+        // 先模拟一遍，得出所有帧的包围区域
+        float left = Float.MAX_VALUE;
+        float top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float bottom = -Float.MAX_VALUE;
+        for (int frame = 0; frame < ExplosionFlipbook.FRAME_COUNT; frame++) {
+            float factor = getFrameValue(frame);
+            for (int i = 0; i < mCount; i++) {
+                advance(i, factor);
+                if (mAlpha[i] > 0f) {
+                    float radius = mRadius[i] + mRadiusStep;
+                    left = Math.min(left, mCx[i] - radius);
+                    top = Math.min(top, mCy[i] - radius);
+                    right = Math.max(right, mCx[i] + radius);
+                    bottom = Math.max(bottom, mCy[i] + radius);
+                }
+            }
+        }
+        if (left >= right || top >= bottom) {
+            return null;
+        }
+        int frameWidth = (int) Math.ceil((right - left) * ExplosionFlipbook.FRAME_SCALE);
+        int frameHeight = (int) Math.ceil((bottom - top) * ExplosionFlipbook.FRAME_SCALE);
+        Bitmap strip;
+        try {
+            strip = Bitmap.createBitmap(frameWidth * ExplosionFlipbook.FRAME_COUNT, frameHeight, Bitmap.Config.ARGB_8888);
+        } catch (OutOfMemoryError e) {
+            return null;
+        }
+        Canvas canvas = new Canvas(strip);
+        for (int frame = 0; frame < ExplosionFlipbook.FRAME_COUNT; frame++) {
+            float factor = getFrameValue(frame);
+            for (int i = 0; i < mCount; i++) {
+                advance(i, factor);
+            }
+            canvas.save();
+            canvas.clipRect(frame * frameWidth, 0, (frame + 1) * frameWidth, frameHeight);
+            canvas.translate(frame * frameWidth, 0);
+            canvas.scale(ExplosionFlipbook.FRAME_SCALE, ExplosionFlipbook.FRAME_SCALE);
+            canvas.translate(-left, -top);
+            drawParticles(canvas);
+            canvas.restore();
+        }
+        mFlipbook = new ExplosionFlipbook(strip, frameWidth, frameHeight, left - mRect.left, top - mRect.top, right - left, bottom - top);
+        mFrame = 0;
+        return mFlipbook;
+    }
+
+    /**
+     * 获取某帧对应的动画值，与动画插值器一致
+     *
+     * @param frame 帧序号
+     * @return 动画值
+     */
+    private float getFrameValue(int frame) {
+        return END_VALUE * DEFAULT_INTERPOLATOR.getInterpolation(frame / (float) (ExplosionFlipbook.FRAME_COUNT - 1));
+    }
+
+    /**
+     * 将碎片整体平移到新的拖动区域，用于预先生成碎片的动画
+     *
+     * @param left 新区域左边位置
+     * @param top  新区域顶部位置
+     */
+    public void offsetTo(int left, int top) {
+        int dx = left - mRect.left;
+        int dy = top - mRect.top;
+        for (int i = 0; i < mCount; i++) {
+            mBaseCx[i] += dx;
+            mBaseCy[i] += dy;
+            mCx[i] += dx;
+            mCy[i] += dy;
+        }
+        mRect.offsetTo(left, top);
+    }
+
+    /**
+     * 回收动画，移除外部添加的监听器及对控件的引用
+     */
+    void recycle() {
+        removeAllListeners();
+        mDragBadgeView = null;
+        mFlipbook = null;
+    }
+
+    /**
+     * 计算碎片网格每边的碎片数
+     * <p>
+     * 按碎片平均大小铺满徽章即可，小徽章不需要太多碎片
+     *
+     * @param maxParticleCount 最大碎片数
+     * @return 每边的碎片数
+     */
+    private int getPartLen(int maxParticleCount) {
+        int maxPartLen = Math.max((int) Math.sqrt(maxParticleCount), 1);
+        int sizePartLen = (int) (Math.sqrt((float) mRect.width() * mRect.height()) / mBaseParticleRadius);
+        return Math.min(maxPartLen, Math.max(sizePartLen, Math.min(MIN_PART_LEN, maxPartLen)));
+    }
+
+    /**
+     * 分配碎片属性数组，已有数组足够时直接复用
+     *
+     * @param count 碎片数
+     */
+    private void allocParticles(int count) {
+        mCount = count;
+        if (mColor != null && mColor.length >= count) {
+            return;
+        }
+        mColor = new int[count];
+        mAlpha = new float[count];
+        mCx = new float[count];
+        mCy = new float[count];
+        mRadius = new float[count];
+        mBaseCx = new float[count];
+        mBaseCy = new float[count];
+        mBaseRadius = new float[count];
+        mBottom = new float[count];
+        mMag = new float[count];
+        mNeg = new float[count];
+        mLife = new float[count];
+        mOverflow = new float[count];
+        mColorIndex = new int[count];
+        mBucket = new int[count];
+        mPoints = new float[count * 2];
+    }
+
+    /**
+     * 获取颜色在调色板中的序号，调色板已满时返回最接近的颜色
+     *
+     * @param color 颜色
+     * @return 调色板序号
+     */
+    private int paletteIndex(int color) {
+        int nearest = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < mPaletteSize; i++) {
+            int c = mPalette[i];
+            if (c == color) {
+                return i;
+            }
+            int da = Color.alpha(c) - Color.alpha(color);
+            int dr = Color.red(c) - Color.red(color);
+            int dg = Color.green(c) - Color.green(color);
+            int db = Color.blue(c) - Color.blue(color);
+            int distance = da * da + dr * dr + dg * dg + db * db;
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        if (mPaletteSize < MAX_PALETTE) {
+            mPalette[mPaletteSize] = color;
+            return mPaletteSize++;
+        }
+        return nearest;
+    }
+
     /**
      * 生成爆炸碎片点
      *
+     * @param index  碎片序号
      * @param color  颜色
      * @param random 随机数
-     * @return 一个爆炸点
      */
-    private Particle generateParticle(int color, Random random) {
-        Particle particle = new Particle();
-        particle.color = color;
-        particle.radius = V;
+    private void generateParticle(int index, int color, Random random) {
+        mColor[index] = color;
+        mColorIndex[index] = paletteIndex(color);
+        mRadius[index] = mBaseParticleRadius;
         if (random.nextFloat() < 0.2f) {
-            particle.baseRadius = V + ((X - V) * random.nextFloat());
+            mBaseRadius[index] = mBaseParticleRadius + ((mMaxRadius - mBaseParticleRadius) * random.nextFloat());
         } else {
-            particle.baseRadius = W + ((V - W) * random.nextFloat());
+            mBaseRadius[index] = mMinRadius + ((mBaseParticleRadius - mMinRadius) * random.nextFloat());
         }
         float nextFloat = random.nextFloat();
-        particle.top = mRect.height() * ((0.18f * random.nextFloat()) + 0.2f);
-        particle.top = nextFloat < 0.2f ? particle.top : particle.top + ((particle.top * 0.2f) * random.nextFloat());
-        particle.bottom = (mRect.height() * (random.nextFloat() - 0.5f)) * 1.8f;
-        float f = nextFloat < 0.2f ? particle.bottom : nextFloat < 0.8f ? particle.bottom * 0.6f : particle.bottom * 0.3f;
-        particle.bottom = f;
-        particle.mag = 4.0f * particle.top / particle.bottom;
-        particle.neg = (-particle.mag) / particle.bottom;
-        f = mRect.centerX() + (Y * (random.nextFloat() - 0.5f));
-        particle.baseCx = f + mRect.width() / 2;
-        particle.cx = particle.baseCx;
-        f = mRect.centerY() + (Y * (random.nextFloat() - 0.5f));
-        particle.baseCy = f;
-        particle.cy = f;
-        particle.life = END_VALUE / 10 * random.nextFloat();
-        particle.overflow = 0.4f * random.nextFloat();
-        particle.alpha = 1f;
-        return particle;
-    }
-
-    /**
-     * 绘制爆炸点
+        float top = mRect.height() * ((0.18f * random.nextFloat()) + 0.2f);
+        top = nextFloat < 0.2f ? top : top + ((top * 0.2f) * random.nextFloat());
+        float bottom = (mRect.height() * (random.nextFloat() - 0.5f)) * 1.8f;
+        bottom = nextFloat < 0.2f ? bottom : nextFloat < 0.8f ? bottom * 0.6f : bottom * 0.3f;
+        mBottom[index] = bottom;
+        mMag[index] = 4.0f * top / bottom;
+        mNeg[index] = (-mMag[index]) / bottom;
+        float f = mRect.centerX() + (mSpread * (random.nextFloat() - 0.5f));
+        mBaseCx[index] = f + mRect.width() / 2;
+        mCx[index] = mBaseCx[index];
+        f = mRect.centerY() + (mSpread * (random.nextFloat() - 0.5f));
+        mBaseCy[index] = f;
+        mCy[index] = f;
+        mLife[index] = END_VALUE / 10 * random.nextFloat();
+        mOverflow[index] = 0.4f * random.nextFloat();
+        mAlpha[index] = 1f;
+    }
+
+    /**
+     * 绘制爆炸点，播放帧序列时只绘制当前帧
      *
      * @param canvas 当前画布
      */
@@ -115,74 +490,143 @@ public class ExplosionAnimator extends ValueAnimator {
         if (!isStarted()) {
             return;
         }
-        for (Particle particle : mParticles) {
-            particle.advance((float) getAnimatedValue());
-            if (particle.alpha > 0f) {
-                mPaint.setColor(particle.color);
-                mPaint.setAlpha((int) (Color.alpha(particle.color) * particle.alpha));
-                canvas.drawCircle(particle.cx, particle.cy, particle.radius, mPaint);
+        if (mFlipbook != null) {
+            mFlipbook.draw(canvas, mFrame, mRect.left, mRect.top);
+            return;
+        }
+        drawParticles(canvas);
+    }
+
+    /**
+     * 按当前状态绘制碎片
+     * <p>
+     * 碎片按（颜色，透明度分级，半径分级）分组，每组只调用一次 drawPoints
+     *
+     * @param canvas 当前画布
+     */
+    private void drawParticles(Canvas canvas) {
+        Arrays.fill(mBucketSize, 0);
+        for (int i = 0; i < mCount; i++) {
+            if (mAlpha[i] > 0f) {
+                int alphaLevel = Math.min((int) (mAlpha[i] * ALPHA_LEVELS), ALPHA_LEVELS - 1);
+                int radiusLevel = Math.min((int) (mRadius[i] / mRadiusStep), RADIUS_LEVELS - 1);
+                int bucket = (mColorIndex[i] * ALPHA_LEVELS + alphaLevel) * RADIUS_LEVELS + radiusLevel;
+                mBucket[i] = bucket;
+                mBucketSize[bucket]++;
+            } else {
+                mBucket[i] = -1;
+            }
+        }
+        // 计数排序，将同组碎片的坐标排在一起
+        int start = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            mBucketStart[b] = start;
+            start += mBucketSize[b];
+        }
+        for (int i = 0; i < mCount; i++) {
+            int bucket = mBucket[i];
+            if (bucket >= 0) {
+                int offset = mBucketStart[bucket]++ * 2;
+                mPoints[offset] = mCx[i];
+                mPoints[offset + 1] = mCy[i];
             }
         }
-        postInvalidate();
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            int size = mBucketSize[b];
+            if (size == 0) {
+                continue;
+            }
+            int radiusLevel = b % RADIUS_LEVELS;
+            int alphaLevel = (b / RADIUS_LEVELS) % ALPHA_LEVELS;
+            int color = mPalette[b / (RADIUS_LEVELS * ALPHA_LEVELS)];
+            mPaint.setColor(color);
+            mPaint.setAlpha((int) (Color.alpha(color) * (alphaLevel + 1) / (float) ALPHA_LEVELS));
+            mPaint.setStrokeWidth((radiusLevel + 0.5f) * mRadiusStep * 2);
+            // 排序后 mBucketStart 指向组尾
+            canvas.drawPoints(mPoints, (mBucketStart[b] - size) * 2, size * 2, mPaint);
+        }
     }
 
     /**
-     * 开始动画
+     * 每帧计算碎片状态，只刷新可见碎片所在区域；碎片全部消失后立即结束动画
+     *
+     * @param animation 动画
      */
     @Override
-    public void start() {
-        super.start();
-        postInvalidate();
-    }
-
-    /**
-     * 只刷新徽章附近的区域
-     */
-    private void postInvalidate() {
-        mDragBadgeView.postInvalidate(mInvalidateRect.left, mInvalidateRect.top, mInvalidateRect.right, mInvalidateRect.bottom);
-    }
-
-    /**
-     * 爆炸碎片
-     */
-    private class Particle {
-        float alpha;
-        int color;
-        float cx;
-        float cy;
-        float radius;
-        float baseCx;
-        float baseCy;
-        float baseRadius;
-        float top;
-        float bottom;
-        float mag;
-        float neg;
-        float life;
-        float overflow;
-
-        /**
-         * 实时计算当前碎片的大小和位置
-         *
-         * @param factor 动画比例
-         */
-        public void advance(float factor) {
-            float f = 0f;
-            float normalization = factor / END_VALUE;
-            if (normalization < life || normalization > 1f - overflow) {
-                alpha = 0f;
-                return;
-            }
-            normalization = (normalization - life) / (1f - life - overflow);
-            float f2 = normalization * END_VALUE;
-            if (normalization >= 0.7f) {
-                f = (normalization - 0.7f) / 0.3f;
+    public void onAnimationUpdate(ValueAnimator animation) {
+        // end() 会再次回调本方法
+        if (mFinished || mDragBadgeView == null) {
+            return;
+        }
+        if (mFlipbook != null) {
+            // 生成帧序列时已应用插值器，这里按未插值的时间进度取帧
+            float progress = Math.min(Math.max(getCurrentPlayTime() / (float) getDuration(), 0f), 1f);
+            mFrame = Math.round(progress * (ExplosionFlipbook.FRAME_COUNT - 1));
+            mFlipbook.getBounds(mRect.left, mRect.top, mBounds);
+            mDragBadgeView.invalidateExplosion(mBounds);
+            return;
+        }
+        float factor = (float) getAnimatedValue();
+        boolean finished = true;
+        float left = Float.MAX_VALUE;
+        float top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float bottom = -Float.MAX_VALUE;
+        for (int i = 0; i < mCount; i++) {
+            advance(i, factor);
+            if (mAlpha[i] > 0f) {
+                // 绘制半径最多比实际半径大半级
+                float radius = mRadius[i] + mRadiusStep;
+                left = Math.min(left, mCx[i] - radius);
+                top = Math.min(top, mCy[i] - radius);
+                right = Math.max(right, mCx[i] + radius);
+                bottom = Math.max(bottom, mCy[i] + radius);
+                finished = false;
+            } else if (factor / END_VALUE < mLife[i]) {
+                // 尚未出现的碎片
+                finished = false;
             }
-            alpha = 1f - f;
-            f = bottom * f2;
-            cx = baseCx + f;
-            cy = (float) (baseCy - this.neg * Math.pow(f, 2.0)) - f * mag;
-            radius = V + (baseRadius - V) * f2;
         }
+        if (finished) {
+            mBounds.setEmpty();
+        } else {
+            mBounds.set((int) Math.floor(left), (int) Math.floor(top), (int) Math.ceil(right), (int) Math.ceil(bottom));
+        }
+        // 同时刷新上一帧的区域，擦除已移走的碎片
+        mLastBounds.union(mBounds);
+        if (!mLastBounds.isEmpty()) {
+            mDragBadgeView.invalidateExplosion(mLastBounds);
+        }
+        mLastBounds.set(mBounds);
+        if (finished) {
+            mFinished = true;
+            end();
+        }
+    }
+
+
+    /**
+     * 实时计算碎片的大小和位置
+     *
+     * @param index  碎片序号
+     * @param factor 动画比例
+     */
+    private void advance(int index, float factor) {
+        float f = 0f;
+        float normalization = factor / END_VALUE;
+        if (normalization < mLife[index] || normalization > 1f - mOverflow[index]) {
+            mAlpha[index] = 0f;
+            return;
+        }
+        normalization = (normalization - mLife[index]) / (1f - mLife[index] - mOverflow[index]);
+        float f2 = normalization * END_VALUE;
+        if (normalization >= 0.7f) {
+            f = (normalization - 0.7f) / 0.3f;
+        }
+        mAlpha[index] = 1f - f;
+        f = mBottom[index] * f2;
+        mCx[index] = mBaseCx[index] + f;
+        mCy[index] = mBaseCy[index] - mNeg[index] * f * f - f * mMag[index];
+        mRadius[index] = mBaseParticleRadius + (mBaseRadius[index] - mBaseParticleRadius) * f2;
     }
 }
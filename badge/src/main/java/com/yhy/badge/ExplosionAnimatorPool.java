@@ -0,0 +1,284 @@
+package com.yhy.badge;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+
+import java.util.ArrayDeque;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 14:30
+ * version: 1.0.0
+ * desc   : 爆炸效果动画池
+ * <p>
+ * 每个窗口一个动画池，连续消失多个徽章时重复使用动画对象及其碎片数组；只应在主线程中使用
+ */
+public class ExplosionAnimatorPool {
+    /**
+     * 每个窗口最多缓存的动画数
+     */
+    private static final int MAX_POOL_SIZE = 4;
+
+    private static final WeakHashMap<View, ExplosionAnimatorPool> POOLS = new WeakHashMap<>();
+    /**
+     * 预先生成碎片的后台线程
+     */
+    private static ExecutorService sPrecomputeExecutor;
+
+    private final ArrayDeque<ExplosionAnimator> mAnimators = new ArrayDeque<>(MAX_POOL_SIZE);
+    /**
+     * 徽章快照，动画重置时已读取全部像素，因此同一窗口共用一张即可
+     */
+    private Bitmap mSnapshot;
+    private final Canvas mSnapshotCanvas = new Canvas();
+
+    private ExplosionAnimatorPool() {
+    }
+
+    /**
+     * 获取窗口对应的动画池
+     *
+     * @param rootView 窗口根控件
+     * @return 动画池
+     */
+    public static ExplosionAnimatorPool get(View rootView) {
+        ExplosionAnimatorPool pool = POOLS.get(rootView);
+        if (pool == null) {
+            pool = new ExplosionAnimatorPool();
+            POOLS.put(rootView, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * 获取动画，池中没有时新建
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param bitmap           图片
+     * @param maxParticleCount 最大碎片数
+     * @return 已重置的动画
+     */
+    public ExplosionAnimator acquire(DragBadgeView dragBadgeView, Rect rect, Bitmap bitmap, int maxParticleCount) {
+        ExplosionAnimator animator = mAnimators.poll();
+        if (animator == null) {
+            return new ExplosionAnimator(dragBadgeView, rect, bitmap, maxParticleCount);
+        }
+        animator.reset(dragBadgeView, rect, bitmap, maxParticleCount);
+        return animator;
+    }
+
+    /**
+     * 获取按徽章颜色分布生成碎片的动画，池中没有时新建
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param rect             拖动区域
+     * @param colorField       徽章颜色分布
+     * @param maxParticleCount 最大碎片数
+     * @return 已重置的动画
+     */
+    public ExplosionAnimator acquire(DragBadgeView dragBadgeView, Rect rect, BadgeColorField colorField, int maxParticleCount) {
+        ExplosionAnimator animator = mAnimators.poll();
+        if (animator == null) {
+            return new ExplosionAnimator(dragBadgeView, rect, colorField, maxParticleCount);
+        }
+        animator.reset(dragBadgeView, rect, colorField, maxParticleCount);
+        return animator;
+    }
+
+    /**
+     * 获取播放帧序列的动画，池中没有时新建
+     *
+     * @param dragBadgeView 可拖拽的徽章控件
+     * @param rect          拖动区域
+     * @param flipbook      帧序列
+     * @return 已重置的动画
+     */
+    public ExplosionAnimator acquire(DragBadgeView dragBadgeView, Rect rect, ExplosionFlipbook flipbook) {
+        ExplosionAnimator animator = mAnimators.poll();
+        if (animator == null) {
+            animator = new ExplosionAnimator(dragBadgeView, rect, flipbook);
+        } else {
+            animator.reset(dragBadgeView, rect, flipbook);
+        }
+        return animator;
+    }
+
+    /**
+     * 在后台线程中预先生成碎片，拖动区域位于原点，开始动画前需调用 {@link ExplosionAnimator#offsetTo(int, int)}
+     * <p>
+     * 返回的动画只属于调用方，不再需要时通过 {@link #discard(Future)} 丢弃
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param width            徽章宽度
+     * @param height           徽章高度
+     * @param colorField       徽章颜色分布，为null时使用图片
+     * @param bitmap           徽章图片，只读取像素
+     * @param maxParticleCount 最大碎片数
+     * @param flipbookKey      不为null时同时渲染帧序列并放入缓存，动画改为播放帧序列
+     * @return 生成结果
+     */
+    public Future<ExplosionAnimator> precompute(final DragBadgeView dragBadgeView, int width, int height, final BadgeColorField colorField, final Bitmap bitmap,
+                                                final int maxParticleCount, final ExplosionFlipbook.Key flipbookKey) {
+        final ExplosionAnimator pooled = mAnimators.poll();
+        final Rect rect = new Rect(0, 0, width, height);
+        return getPrecomputeExecutor().submit(new Callable<ExplosionAnimator>() {
+            @Override
+            public ExplosionAnimator call() {
+                ExplosionAnimator animator = pooled;
+                if (animator == null) {
+                    animator = colorField != null
+                            ? new ExplosionAnimator(dragBadgeView, rect, colorField, maxParticleCount)
+                            : new ExplosionAnimator(dragBadgeView, rect, bitmap, maxParticleCount);
+                } else if (colorField != null) {
+                    animator.reset(dragBadgeView, rect, colorField, maxParticleCount);
+                } else {
+                    animator.reset(dragBadgeView, rect, bitmap, maxParticleCount);
+                }
+                if (flipbookKey != null) {
+                    renderFlipbook(animator, flipbookKey);
+                }
+                return animator;
+            }
+        });
+    }
+
+    /**
+     * 在后台线程中渲染帧序列并放入缓存，用于来不及预先生成时，本次播放碎片之后供下次使用
+     *
+     * @param dragBadgeView    可拖拽的徽章控件
+     * @param width            徽章宽度
+     * @param height           徽章高度
+     * @param colorField       徽章颜色分布，为null时使用图片
+     * @param bitmap           徽章图片，只读取像素
+     * @param maxParticleCount 最大碎片数
+     * @param flipbookKey      徽章外观
+     */
+    public void bakeFlipbook(final DragBadgeView dragBadgeView, int width, int height, final BadgeColorField colorField, final Bitmap bitmap,
+                             final int maxParticleCount, final ExplosionFlipbook.Key flipbookKey) {
+        final Rect rect = new Rect(0, 0, width, height);
+        getPrecomputeExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                // 只用于渲染，不放入池中
+                ExplosionAnimator animator = colorField != null
+                        ? new ExplosionAnimator(dragBadgeView, rect, colorField, maxParticleCount)
+                        : new ExplosionAnimator(dragBadgeView, rect, bitmap, maxParticleCount);
+                renderFlipbook(animator, flipbookKey);
+                animator.recycle();
+            }
+        });
+    }
+
+    /**
+     * 渲染帧序列并放入缓存
+     *
+     * @param animator    已生成碎片的动画
+     * @param flipbookKey 徽章外观
+     */
+    private static void renderFlipbook(ExplosionAnimator animator, ExplosionFlipbook.Key flipbookKey) {
+        if (ExplosionFlipbook.get(flipbookKey) != null) {
+            return;
+        }
+        ExplosionFlipbook flipbook = animator.renderFlipbook();
+        if (flipbook != null) {
+            ExplosionFlipbook.put(flipbookKey, flipbook);
+        }
+    }
+
+    /**
+     * 丢弃预先生成的动画，已生成完成时归还到池中
+     *
+     * @param future 生成结果
+     */
+    public void discard(Future<ExplosionAnimator> future) {
+        if (!future.isDone()) {
+            // 正在生成的动画不再归还，直接交给垃圾回收
+            future.cancel(false);
+            return;
+        }
+        try {
+            release(future.get());
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * 获取后台线程
+     *
+     * @return 后台线程
+     */
+    private static synchronized ExecutorService getPrecomputeExecutor() {
+        if (sPrecomputeExecutor == null) {
+            sPrecomputeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "BadgeExplosionPrecompute");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sPrecomputeExecutor;
+    }
+
+    /**
+     * 归还动画，池已满时直接丢弃
+     *
+     * @param animator 动画
+     */
+    public void release(ExplosionAnimator animator) {
+        if (animator.isRunning() || mAnimators.contains(animator)) {
+            return;
+        }
+        animator.recycle();
+        if (mAnimators.size() < MAX_POOL_SIZE) {
+            mAnimators.offer(animator);
+        }
+    }
+
+    /**
+     * 获取徽章快照画布，位图大小与徽章一致，已清空
+     *
+     * @param width  徽章宽度
+     * @param height 徽章高度
+     * @return 快照画布，内存不足时返回null
+     */
+    public Canvas obtainSnapshotCanvas(int width, int height) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        try {
+            if (mSnapshot != null && mSnapshot.getAllocationByteCount() >= width * height * 4) {
+                if (mSnapshot.getWidth() != width || mSnapshot.getHeight() != height) {
+                    mSnapshot.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+                }
+                mSnapshot.eraseColor(0);
+            } else {
+                mSnapshot = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            }
+        } catch (OutOfMemoryError e) {
+            mSnapshot = null;
+            return null;
+        }
+        mSnapshotCanvas.setBitmap(mSnapshot);
+        return mSnapshotCanvas;
+    }
+
+    /**
+     * 获取最近一次绘制的徽章快照
+     *
+     * @return 徽章快照
+     */
+    public Bitmap getSnapshot() {
+        return mSnapshot;
+    }
+}
@@ -0,0 +1,164 @@
+package com.yhy.badge;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.LruCache;
+
+import java.util.Arrays;
+
+/**
+ * author : 颜洪毅
+ * e-mail : yhyzgn@gmail.com
+ * time   : 2026-10-18 15:50
+ * version: 1.0.0
+ * desc   : 预渲染的爆炸效果帧序列
+ * <p>
+ * 同一外观的徽章只模拟一次爆炸效果，并按一半分辨率渲染到一张横向排列的帧位图中，播放时每帧只需一次 drawBitmap；
+ * 帧序列按占用内存大小缓存，超出上限时淘汰最久未使用的；缓存是线程安全的，帧序列可以在后台线程中渲染后放入
+ */
+public class ExplosionFlipbook {
+    /**
+     * 帧数
+     */
+    public static final int FRAME_COUNT = 15;
+    /**
+     * 渲染分辨率相对于原始大小的比例
+     */
+    static final float FRAME_SCALE = 0.5f;
+    /**
+     * 缓存占用内存的上限
+     */
+    private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final LruCache<Key, ExplosionFlipbook> CACHE = new LruCache<Key, ExplosionFlipbook>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Key key, ExplosionFlipbook value) {
+            return value.mStrip.getAllocationByteCount();
+        }
+    };
+
+    private final Bitmap mStrip;
+    private final int mFrameWidth;
+    private final int mFrameHeight;
+    /**
+     * 帧区域相对于拖动区域左上角的位置及原始大小
+     */
+    private final float mOffsetX;
+    private final float mOffsetY;
+    private final float mWidth;
+    private final float mHeight;
+    private final Rect mSrc = new Rect();
+    private final RectF mDst = new RectF();
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    ExplosionFlipbook(Bitmap strip, int frameWidth, int frameHeight, float offsetX, float offsetY, float width, float height) {
+        mStrip = strip;
+        mFrameWidth = frameWidth;
+        mFrameHeight = frameHeight;
+        mOffsetX = offsetX;
+        mOffsetY = offsetY;
+        mWidth = width;
+        mHeight = height;
+    }
+
+    /**
+     * 获取缓存的帧序列
+     *
+     * @param key 徽章外观
+     * @return 帧序列，不存在时返回null
+     */
+    public static ExplosionFlipbook get(Key key) {
+        return CACHE.get(key);
+    }
+
+    /**
+     * 缓存帧序列
+     *
+     * @param key      徽章外观
+     * @param flipbook 帧序列
+     */
+    public static void put(Key key, ExplosionFlipbook flipbook) {
+        CACHE.put(key, flipbook);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.evictAll();
+    }
+
+    /**
+     * 获取某帧在画布中的区域
+     *
+     * @param left 拖动区域左边位置
+     * @param top  拖动区域顶部位置
+     * @param out  帧区域
+     */
+    public void getBounds(int left, int top, Rect out) {
+        out.set((int) Math.floor(left + mOffsetX), (int) Math.floor(top + mOffsetY),
+                (int) Math.ceil(left + mOffsetX + mWidth), (int) Math.ceil(top + mOffsetY + mHeight));
+    }
+
+    /**
+     * 绘制某帧
+     *
+     * @param canvas 当前画布
+     * @param frame  帧序号
+     * @param left   拖动区域左边位置
+     * @param top    拖动区域顶部位置
+     */
+    public void draw(Canvas canvas, int frame, int left, int top) {
+        mSrc.set(frame * mFrameWidth, 0, (frame + 1) * mFrameWidth, mFrameHeight);
+        mDst.set(left + mOffsetX, top + mOffsetY, left + mOffsetX + mWidth, top + mOffsetY + mHeight);
+        canvas.drawBitmap(mStrip, mSrc, mDst, mPaint);
+    }
+
+    /**
+     * 徽章外观，外观相同的徽章共用帧序列
+     */
+    public static class Key {
+        private final int[] values;
+
+        /**
+         * 文本徽章及圆点徽章的外观
+         *
+         * @param colorField       徽章颜色分布
+         * @param maxParticleCount 最大碎片数
+         */
+        public Key(BadgeColorField colorField, int maxParticleCount) {
+            values = new int[]{colorField.getWidth(), colorField.getHeight(), colorField.getPadding(), colorField.getBgColor(),
+                    colorField.getTextColor(), colorField.hasText() ? 1 : 0, colorField.getTextBounds().left, colorField.getTextBounds().top,
+                    colorField.getTextBounds().right, colorField.getTextBounds().bottom, Float.floatToIntBits(colorField.getTextCoverage()), maxParticleCount};
+        }
+
+        /**
+         * 图片徽章的外观
+         *
+         * @param bitmap           徽章图片
+         * @param maxParticleCount 最大碎片数
+         */
+        public Key(Bitmap bitmap, int maxParticleCount) {
+            values = new int[]{bitmap.getWidth(), bitmap.getHeight(), System.identityHashCode(bitmap), bitmap.getGenerationId(), maxParticleCount};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            return Arrays.equals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+}
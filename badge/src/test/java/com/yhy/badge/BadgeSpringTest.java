@@ -0,0 +1,72 @@
+package com.yhy.badge;
+
+import static org.junit.Assert.*;
+
+import org.testng.annotations.Test;
+
+/**
+ * 阻尼弹簧测试，检查三种阻尼情况下的收敛及更换目标时的连续性
+ */
+public class BadgeSpringTest {
+    private static final long FRAME_NANOS = 16666667L;
+    private static final float[] DAMPING_RATIOS = {0.5f, 1f, 2f};
+
+    @Test
+    public void spring_convergesToTarget() throws Exception {
+        for (float dampingRatio : DAMPING_RATIOS) {
+            BadgeSpring spring = new BadgeSpring();
+            spring.setDampingRatio(dampingRatio);
+            spring.start(100, -50, 0, 0, 10, 20, 0);
+            long time = 0;
+            int frames = 0;
+            while (spring.update(time)) {
+                time += FRAME_NANOS;
+                frames++;
+                assertTrue("damping ratio " + dampingRatio + " did not settle", frames < 600);
+            }
+            assertEquals(10f, spring.getX(), 0f);
+            assertEquals(20f, spring.getY(), 0f);
+            assertEquals(0f, spring.getVelocityX(), 0f);
+            assertEquals(0f, spring.getVelocityY(), 0f);
+        }
+    }
+
+    @Test
+    public void retarget_keepsPositionAndVelocity() throws Exception {
+        for (float dampingRatio : DAMPING_RATIOS) {
+            BadgeSpring spring = new BadgeSpring();
+            spring.setDampingRatio(dampingRatio);
+            spring.start(100, 0, 300, -200, 0, 0, 0);
+            long time = 40000000L;
+            spring.update(time);
+            float x = spring.getX();
+            float y = spring.getY();
+            float vx = spring.getVelocityX();
+            float vy = spring.getVelocityY();
+
+            spring.retarget(200, 80, time);
+            spring.update(time);
+            assertEquals(x, spring.getX(), 0.01f);
+            assertEquals(y, spring.getY(), 0.01f);
+            assertEquals(vx, spring.getVelocityX(), 0.5f);
+            assertEquals(vy, spring.getVelocityY(), 0.5f);
+        }
+    }
+
+    @Test
+    public void velocity_matchesPositionDerivative() throws Exception {
+        for (float dampingRatio : DAMPING_RATIOS) {
+            BadgeSpring spring = new BadgeSpring();
+            spring.setDampingRatio(dampingRatio);
+            spring.start(100, 0, 50, 0, 0, 0, 0);
+            long time = 10000000L;
+            long step = 10000L;
+            spring.update(time);
+            float x0 = spring.getX();
+            float velocity = spring.getVelocityX();
+            spring.update(time + step);
+            float numeric = (spring.getX() - x0) / (step / 1000000000f);
+            assertEquals(velocity, numeric, Math.abs(velocity) * 0.01f);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.yhy.badge;
+
+import static org.junit.Assert.*;
+
+import org.testng.annotations.Test;
+
+/**
+ * 拖拽位置预测器测试，回放一组触摸位置并检查预测结果
+ */
+public class DragTouchPredictorTest {
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void constantVelocity_isExtrapolated() throws Exception {
+        DragTouchPredictor predictor = new DragTouchPredictor(8);
+        // 每4毫秒向右移动2个像素
+        for (int i = 0; i <= 4; i++) {
+            predictor.addSample(i * 4, i * 2, 10);
+        }
+        assertTrue(predictor.predict());
+        assertEquals(12f, predictor.getPredictedX(), DELTA);
+        assertEquals(10f, predictor.getPredictedY(), DELTA);
+    }
+
+    @Test
+    public void directionChange_isNotExtrapolated() throws Exception {
+        DragTouchPredictor predictor = new DragTouchPredictor(8);
+        predictor.addSample(0, 0, 0);
+        predictor.addSample(4, 4, 0);
+        predictor.addSample(8, 8, 0);
+        predictor.addSample(12, 6, 0);
+        assertFalse(predictor.predict());
+        assertEquals(6f, predictor.getPredictedX(), DELTA);
+    }
+
+    @Test
+    public void longHorizon_isClampedToRecentTravel() throws Exception {
+        DragTouchPredictor predictor = new DragTouchPredictor(100);
+        predictor.addSample(0, 0, 0);
+        predictor.addSample(8, 0, 8);
+        predictor.addSample(16, 0, 16);
+        assertTrue(predictor.predict());
+        assertEquals(32f, predictor.getPredictedY(), DELTA);
+    }
+
+    @Test
+    public void zeroHorizon_returnsLatestSample() throws Exception {
+        DragTouchPredictor predictor = new DragTouchPredictor(0);
+        predictor.addSample(0, 0, 0);
+        predictor.addSample(8, 5, 5);
+        assertFalse(predictor.predict());
+        assertEquals(5f, predictor.getPredictedX(), DELTA);
+        assertEquals(5f, predictor.getPredictedY(), DELTA);
+    }
+}